@@ -0,0 +1,353 @@
+package dev.rsoliveira.tools.binpacking.benchmark;
+
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.io.PackingProblem;
+import dev.rsoliveira.tools.binpacking.service.PackingService;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Sweeps whole datasets, packing every problem into as many containers as needed, and reports the quality and the
+ * time of each engine mode.
+ * <p>
+ * For each problem and mode it records the fill percentage of the first container, the number of containers and
+ * the wall time; for each dataset and mode it sums them up, with the p50 and p99 latencies. Results can be written
+ * as CSV and JSON, and compared with a CSV written by an earlier run.
+ * <pre>
+ * java -cp benchmarks.jar dev.rsoliveira.tools.binpacking.benchmark.CorpusRunner \
+ *     [--datasets br1,br7] [--modes sequential,parallel] [--limit 100] [--threads 4] [--warmup 10] \
+ *     [--csv results.csv] [--json results.json] [--baseline baseline.csv]
+ * </pre>
+ * Problems are packed concurrently by --threads threads; use a single thread for latencies free of interference.
+ */
+public class CorpusRunner {
+
+    /**
+     * The packing engines that can be compared.
+     */
+    enum Mode {
+        SEQUENTIAL {
+            @Override
+            PackingService create() {
+                return PackingService.newInstance(new PalletPackingSimulation());
+            }
+        },
+        PARALLEL {
+            @Override
+            PackingService create() {
+                return PackingService.newInstance(new PalletPackingSimulation(ForkJoinPool.commonPool()));
+            }
+        };
+
+        abstract PackingService create();
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The outcome of packing one problem with one mode.
+     */
+    static class Result {
+        final String dataset;
+        final int problem;
+        final String mode;
+        final int containers;
+        final double fill;
+        final double itemsFill;
+        final double millis;
+
+        Result(String dataset, int problem, String mode, int containers, double fill, double itemsFill,
+               double millis) {
+            this.dataset = dataset;
+            this.problem = problem;
+            this.mode = mode;
+            this.containers = containers;
+            this.fill = fill;
+            this.itemsFill = itemsFill;
+            this.millis = millis;
+        }
+
+        String key() {
+            return dataset + "/" + problem + "/" + mode;
+        }
+    }
+
+    /**
+     * The results of one dataset and mode, summed up.
+     */
+    static class Summary {
+        final String dataset;
+        final String mode;
+        final int problems;
+        final double meanFill;
+        final double meanContainers;
+        final double p50;
+        final double p99;
+        final double wallMillis;
+
+        Summary(String dataset, String mode, List<Result> results, double wallMillis) {
+            this.dataset = dataset;
+            this.mode = mode;
+            this.problems = results.size();
+            this.wallMillis = wallMillis;
+            double fill = 0, containers = 0;
+            double[] millis = new double[results.size()];
+            for (int i = 0; i < results.size(); i++) {
+                fill += results.get(i).fill;
+                containers += results.get(i).containers;
+                millis[i] = results.get(i).millis;
+            }
+            Arrays.sort(millis);
+            this.meanFill = problems == 0 ? 0 : fill / problems;
+            this.meanContainers = problems == 0 ? 0 : containers / problems;
+            this.p50 = percentile(millis, 50);
+            this.p99 = percentile(millis, 99);
+        }
+    }
+
+    private List<String> datasets = Arrays.asList(Datasets.NAMES);
+    private List<Mode> modes = Arrays.asList(Mode.SEQUENTIAL);
+    private int limit = Integer.MAX_VALUE;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int warmup = 10;
+    private String csv;
+    private String json;
+    private String baseline;
+
+    public static void main(String[] args) throws Exception {
+        CorpusRunner runner = new CorpusRunner();
+        runner.parse(args);
+        runner.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--datasets": datasets = Arrays.asList(value.split(",")); break;
+                case "--modes": {
+                    List<Mode> selected = new ArrayList<>();
+                    for (String mode : value.split(",")) {
+                        selected.add(Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)));
+                    }
+                    modes = selected;
+                    break;
+                }
+                case "--limit": limit = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--csv": csv = value; break;
+                case "--json": json = value; break;
+                case "--baseline": baseline = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+    }
+
+    private void run() throws IOException, InterruptedException, ExecutionException {
+        Map<String, List<PackingProblem>> problems = new LinkedHashMap<>();
+        for (String dataset : datasets) {
+            List<PackingProblem> all = Datasets.load(dataset);
+            problems.put(dataset, all.subList(0, Math.min(limit, all.size())));
+        }
+
+        List<Result> results = new ArrayList<>();
+        List<Summary> summaries = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Mode mode : modes) {
+                PackingService service = mode.create();
+                for (Map.Entry<String, List<PackingProblem>> dataset : problems.entrySet()) {
+                    List<PackingProblem> warmupProblems =
+                            dataset.getValue().subList(0, Math.min(warmup, dataset.getValue().size()));
+                    sweep(executor, service, dataset.getKey(), warmupProblems, mode);
+
+                    long start = System.nanoTime();
+                    List<Result> sweep = sweep(executor, service, dataset.getKey(), dataset.getValue(), mode);
+                    double wallMillis = (System.nanoTime() - start) / 1e6;
+                    results.addAll(sweep);
+                    summaries.add(new Summary(dataset.getKey(), mode.label(), sweep, wallMillis));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        printSummaries(summaries);
+        if (baseline != null) {
+            compare(readCsv(baseline), results);
+        }
+        if (csv != null) {
+            writeCsv(csv, results);
+        }
+        if (json != null) {
+            writeJson(json, results, summaries);
+        }
+    }
+
+    private List<Result> sweep(ExecutorService executor, PackingService service, String dataset,
+                               List<PackingProblem> problems, Mode mode)
+            throws InterruptedException, ExecutionException {
+        List<Future<Result>> futures = new ArrayList<>();
+        for (PackingProblem problem : problems) {
+            futures.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                List<Solution> solutions = service.simulate(problem.getContainer(), problem.getItems());
+                double millis = (System.nanoTime() - start) / 1e6;
+                Solution first = solutions.get(0);
+                return new Result(dataset, problem.getNumber(), mode.label(), solutions.size(),
+                        first.getPercentageContainerVolumeUsed(), first.getPercentagePackedItemsVolume(), millis);
+            }));
+        }
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private void printSummaries(List<Summary> summaries) {
+        System.out.println(String.format(Locale.ROOT, "%-8s %-11s %8s %9s %10s %10s %10s %10s",
+                "dataset", "mode", "problems", "fill %", "containers", "p50 ms", "p99 ms", "wall ms"));
+        for (Summary summary : summaries) {
+            System.out.println(String.format(Locale.ROOT, "%-8s %-11s %8d %9.2f %10.2f %10.2f %10.2f %10.0f",
+                    summary.dataset, summary.mode, summary.problems, summary.meanFill, summary.meanContainers,
+                    summary.p50, summary.p99, summary.wallMillis));
+        }
+    }
+
+    /**
+     * Prints, for each dataset and mode, how the fill and the latencies changed from the baseline; only problems
+     * present in both runs are compared.
+     */
+    private void compare(List<Result> baselineResults, List<Result> results) {
+        Map<String, Result> before = new HashMap<>();
+        for (Result result : baselineResults) {
+            before.put(result.key(), result);
+        }
+
+        Map<String, List<Result[]>> pairs = new LinkedHashMap<>();
+        for (Result result : results) {
+            Result old = before.get(result.key());
+            if (old != null) {
+                pairs.computeIfAbsent(result.dataset + " " + result.mode, k -> new ArrayList<>())
+                        .add(new Result[]{old, result});
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-20s %8s %10s %7s %7s %10s %10s %10s",
+                "baseline", "problems", "fill diff", "better", "worse", "containers", "p50 x", "p99 x"));
+        for (Map.Entry<String, List<Result[]>> entry : pairs.entrySet()) {
+            List<Result> old = new ArrayList<>();
+            List<Result> current = new ArrayList<>();
+            int better = 0, worse = 0;
+            for (Result[] pair : entry.getValue()) {
+                old.add(pair[0]);
+                current.add(pair[1]);
+                if (pair[1].fill > pair[0].fill + 0.005) {
+                    better++;
+                } else if (pair[1].fill < pair[0].fill - 0.005) {
+                    worse++;
+                }
+            }
+            Summary oldSummary = new Summary("", "", old, 0);
+            Summary summary = new Summary("", "", current, 0);
+            System.out.println(String.format(Locale.ROOT, "%-20s %8d %+10.3f %7d %7d %+10.2f %10.2f %10.2f",
+                    entry.getKey(), summary.problems, summary.meanFill - oldSummary.meanFill, better, worse,
+                    summary.meanContainers - oldSummary.meanContainers,
+                    ratio(summary.p50, oldSummary.p50), ratio(summary.p99, oldSummary.p99)));
+        }
+    }
+
+    private static double ratio(double value, double base) {
+        return base == 0 ? 0 : value / base;
+    }
+
+    /**
+     * @return the nearest-rank percentile of sorted values.
+     */
+    static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static void writeCsv(String file, List<Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8))) {
+            out.println("dataset,problem,mode,containers,fill,itemsFill,millis");
+            for (Result result : results) {
+                out.println(String.format(Locale.ROOT, "%s,%d,%s,%d,%.4f,%.4f,%.3f", result.dataset, result.problem,
+                        result.mode, result.containers, result.fill, result.itemsFill, result.millis));
+            }
+        }
+    }
+
+    private static List<Result> readCsv(String file) throws IOException {
+        List<Result> results = new ArrayList<>();
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            results.add(new Result(fields[0], Integer.parseInt(fields[1]), fields[2], Integer.parseInt(fields[3]),
+                    Double.parseDouble(fields[4]), Double.parseDouble(fields[5]), Double.parseDouble(fields[6])));
+        }
+        return results;
+    }
+
+    private static void writeJson(String file, List<Result> results, List<Summary> summaries) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.println("  \"summaries\": [");
+            for (int i = 0; i < summaries.size(); i++) {
+                Summary summary = summaries.get(i);
+                out.print(String.format(Locale.ROOT,
+                        "    {\"dataset\": \"%s\", \"mode\": \"%s\", \"problems\": %d, \"fill\": %.4f, " +
+                        "\"containers\": %.4f, \"p50Millis\": %.3f, \"p99Millis\": %.3f, \"wallMillis\": %.3f}",
+                        summary.dataset, summary.mode, summary.problems, summary.meanFill, summary.meanContainers,
+                        summary.p50, summary.p99, summary.wallMillis));
+                out.println(i + 1 < summaries.size() ? "," : "");
+            }
+            out.println("  ],");
+            out.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                Result result = results.get(i);
+                out.print(String.format(Locale.ROOT,
+                        "    {\"dataset\": \"%s\", \"problem\": %d, \"mode\": \"%s\", \"containers\": %d, " +
+                        "\"fill\": %.4f, \"itemsFill\": %.4f, \"millis\": %.3f}",
+                        result.dataset, result.problem, result.mode, result.containers, result.fill,
+                        result.itemsFill, result.millis));
+                out.println(i + 1 < results.size() ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dev.rsoliveira.tools.binpacking.benchmark;
+
+import dev.rsoliveira.tools.binpacking.io.BischoffRatcliffReader;
+import dev.rsoliveira.tools.binpacking.io.PackingProblem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The packing problems bundled with the benchmarks, in the Bischoff-Ratcliff format.
+ * <ul>
+ *     <li>br1 to br7: the Bischoff-Ratcliff instances used by the unit tests, from 3 to 20 item types;</li>
+ *     <li>iso: the ISO pallet sets used by the unit tests, on a 104 x 96 x 84 pallet.</li>
+ * </ul>
+ */
+public final class Datasets {
+
+    /**
+     * All bundled datasets.
+     */
+    public static final String[] NAMES = {"br1", "br2", "br3", "br4", "br5", "br6", "br7", "iso"};
+
+    private Datasets() {
+    }
+
+    /**
+     * Reads all problems of a bundled dataset.
+     * @param name the dataset name, such as "br1" or "iso".
+     * @return the problems, in file order.
+     */
+    public static List<PackingProblem> load(String name) {
+        InputStream input = Datasets.class.getResourceAsStream("/" + name + ".txt");
+        if (input == null) {
+            throw new IllegalArgumentException("Unknown dataset: " + name);
+        }
+        try (InputStreamReader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            return new BischoffRatcliffReader().read(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
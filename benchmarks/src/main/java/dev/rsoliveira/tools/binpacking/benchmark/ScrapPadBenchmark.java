@@ -0,0 +1,98 @@
+package dev.rsoliveira.tools.binpacking.benchmark;
+
+import dev.rsoliveira.tools.binpacking.domain.ScrapPad;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains a layer edge while filling a layer with boxes of random sizes: each box goes into the lowest gap,
+ * splitting it when narrower, and gaps that end at the same depth are merged, as the simulation does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScrapPadBenchmark {
+
+    private static final long WIDTH = 1000;
+    private static final long DEPTH = 1000;
+
+    /**
+     * The largest box side; the smaller the boxes, the more gaps the edge has.
+     */
+    @Param({"20", "100"})
+    public int boxSize;
+
+    private long[] boxX, boxZ;
+    private ScrapPad edge;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        boxX = new long[4096];
+        boxZ = new long[4096];
+        for (int i = 0; i < boxX.length; i++) {
+            boxX[i] = 1 + random.nextInt(boxSize);
+            boxZ[i] = 1 + random.nextInt(boxSize);
+        }
+        edge = new ScrapPad();
+    }
+
+    @Benchmark
+    public long fillLayer() {
+        edge.reset(WIDTH);
+        long packed = 0;
+        int box = 0;
+        while (true) {
+            int smallestZ = edge.findSmallestZ();
+            long z = edge.getGapZ(smallestZ);
+            if (z >= DEPTH) {
+                break;
+            }
+            int previous = edge.getPrevious(smallestZ);
+            int next = edge.getNext(smallestZ);
+            long left = previous == ScrapPad.NONE ? 0 : edge.getGapX(previous);
+            long width = edge.getGapX(smallestZ) - left;
+            long x = Math.min(boxX[box], width);
+            long depth = z + boxZ[box];
+            box = (box + 1) & (boxX.length - 1);
+
+            if (x < width) {
+                if (previous == ScrapPad.NONE) {
+                    edge.insertAfter(smallestZ, edge.getGapX(smallestZ), z);
+                    edge.updateGaps(smallestZ, x, depth);
+                } else if (edge.getGapZ(previous) == depth) {
+                    edge.incrementGapX(previous, x);
+                } else {
+                    edge.insertBefore(smallestZ, left + x, depth);
+                }
+            } else {
+                edge.setGapZ(smallestZ, depth);
+                if (next != ScrapPad.NONE && edge.getGapZ(next) == depth) {
+                    edge.setGapX(smallestZ, edge.getGapX(next));
+                    edge.remove(next);
+                }
+                if (previous != ScrapPad.NONE && edge.getGapZ(previous) == depth) {
+                    edge.setGapX(previous, edge.getGapX(smallestZ));
+                    edge.remove(smallestZ);
+                }
+            }
+            packed++;
+        }
+        return packed;
+    }
+}
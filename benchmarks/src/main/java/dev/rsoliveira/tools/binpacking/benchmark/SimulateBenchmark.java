@@ -0,0 +1,70 @@
+package dev.rsoliveira.tools.binpacking.benchmark;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.io.PackingProblem;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs the first problems of a bundled dataset into a single container, the way a caller of
+ * {@link PalletPackingSimulation#simulate(Container, List)} does.
+ * Each operation packs {@link #problems} problems, so the score is the time to pack all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulateBenchmark {
+
+    @Param({"br1", "br2", "br3", "br4", "br5", "br6", "br7", "iso"})
+    public String dataset;
+
+    @Param({"10"})
+    public int problems;
+
+    private List<PackingProblem> instances;
+    private PalletPackingSimulation simulation;
+
+    @Setup
+    public void setUp() {
+        List<PackingProblem> all = Datasets.load(dataset);
+        instances = all.subList(0, Math.min(problems, all.size()));
+        simulation = new PalletPackingSimulation();
+    }
+
+    @Benchmark
+    public void simulate(Blackhole blackhole) {
+        for (PackingProblem instance : instances) {
+            blackhole.consume(simulation.simulate(instance.getContainer(), instance.getItems())
+                    .getPercentageContainerVolumeUsed());
+        }
+    }
+
+    /**
+     * Same as {@link #simulate(Blackhole)}, also reading the packed items, which builds the per-unit results.
+     */
+    @Benchmark
+    public void simulateAndList(Blackhole blackhole) {
+        for (PackingProblem instance : instances) {
+            List<Item> packed = simulation.simulate(instance.getContainer(), instance.getItems()).getPackedItems();
+            blackhole.consume(packed.size());
+        }
+    }
+}
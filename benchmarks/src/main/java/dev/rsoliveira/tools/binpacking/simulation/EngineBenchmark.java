@@ -0,0 +1,84 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.benchmark.Datasets;
+import dev.rsoliveira.tools.binpacking.domain.Layer;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+import dev.rsoliveira.tools.binpacking.io.PackingProblem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks of the simulation steps, on the first layer of the first orientation of a bundled problem.
+ * It lives in the simulation package to reach the package-private steps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({"br1", "br4", "br7", "iso"})
+    public String dataset;
+
+    @Param({"0"})
+    public int problem;
+
+    private PackingProblem instance;
+    private Volume orientation;
+    private PalletPackingSimulation simulation;
+    private PalletPackingState state;
+
+    @Setup
+    public void setUp() {
+        instance = Datasets.load(dataset).get(problem);
+        orientation = instance.getContainer().atOrientation(1);
+        simulation = new PalletPackingSimulation();
+
+        state = new PalletPackingState(instance.getContainer(), instance.getItems());
+        List<Layer> layers = state.getCandidateLayers().list(orientation);
+        state.useContainerOrientation(orientation);
+        state.restartPacking();
+        state.resetThickness(layers.get(1).getDimension(), orientation.getDimension2(), orientation.getDimension3());
+    }
+
+    /**
+     * Looks for the best box to fill an empty layer.
+     */
+    @Benchmark
+    public int findBox() {
+        simulation.findBox(state, orientation.getDimension1(), orientation.getDimension3(),
+                orientation.getDimension3());
+        return state.getBoxFittingIndex();
+    }
+
+    /**
+     * Chooses the thickness of the next layer, with all units still unpacked.
+     */
+    @Benchmark
+    public long findLayer() {
+        simulation.findLayer(state, orientation, orientation.getDimension2());
+        return state.getLayerThickness();
+    }
+
+    /**
+     * Lists the candidate layers of a new simulation of the same items.
+     */
+    @Benchmark
+    public List<Layer> listCandidateLayers() {
+        return new CandidateLayers(instance.getItems()).list(orientation);
+    }
+}
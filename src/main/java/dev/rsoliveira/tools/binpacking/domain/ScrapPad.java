@@ -1,57 +1,91 @@
 package dev.rsoliveira.tools.binpacking.domain;
 
+import java.util.Arrays;
+
 /**
  * A topology of the edge of the current layer under construction.
  * X and Z coordinates are kept for each gap's right corner.
  * A search for gaps is made; for each gap found a test is made to fill the boxes, trying to keep
  * the edge of the layer even.
+ * <p>
+ * The edge is a doubly linked list of gaps, ordered from left to right, kept in primitive arrays. Gaps are
+ * referenced by their index; removed gaps go to a free list and are reused, so the same edge can be used for every
+ * layer and packing run without allocating. An indexed min-heap ordered by (z, x) keeps the lowest gap at hand; as
+ * x grows from left to right along the edge, it's always the leftmost of the lowest gaps.
  */
 public class ScrapPad {
 
+    /**
+     * Index meaning "no gap".
+     */
+    public static final int NONE = -1;
+
     /**
      * Previous entry.
      */
-    private ScrapPad previous;
+    private int[] previous;
     /**
      * Following entry.
      */
-    private ScrapPad next;
-
+    private int[] next;
     /**
      * X coordinate of the gap's right corner.
      */
-    private long gapX;
+    private long[] gapX;
     /**
      * Z coordinate of the gap's right corner.
      */
-    private long gapZ;
+    private long[] gapZ;
+
+    private int first;
+    private int free;
+    private int used;
+
+    /**
+     * Gaps ordered as a binary min-heap, and the position of each gap in it.
+     */
+    private int[] heap;
+    private int[] heapPosition;
+    private int heapSize;
+
+    private long created;
 
     public ScrapPad() {
-        this.previous = null;
-        this.next = null;
+        this(16);
     }
 
-    public ScrapPad(ScrapPad previous, ScrapPad next) {
-        this.previous = previous;
-        this.next = next;
+    public ScrapPad(int capacity) {
+        this.previous = new int[capacity];
+        this.next = new int[capacity];
+        this.gapX = new long[capacity];
+        this.gapZ = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapPosition = new int[capacity];
+        reset(0);
     }
 
-    public ScrapPad(ScrapPad previous, ScrapPad next, long gapX, long gapZ) {
-        this.previous = previous;
-        this.next = next;
-        this.gapX = gapX;
-        this.gapZ = gapZ;
+    /**
+     * Clears the edge, leaving a single gap spanning the whole width at z = 0.
+     * @param width the x coordinate of the right corner of the single gap.
+     */
+    public void reset(long width) {
+        used = 0;
+        free = NONE;
+        heapSize = 0;
+        first = allocate(width, 0);
+        previous[first] = NONE;
+        next[first] = NONE;
     }
 
-    public Situation isSituation() {
+    public Situation isSituation(int gap) {
         Situation ret;
-        if (this.previous == null && this.next == null) {
+        if (previous[gap] == NONE && next[gap] == NONE) {
             ret = Situation.EMPTY;
-        } else if (this.previous == null) {
+        } else if (previous[gap] == NONE) {
             ret = Situation.ONLY_RIGHT_BOX;
-        } else if (this.next == null) {
+        } else if (next[gap] == NONE) {
             ret = Situation.ONLY_LEFT_BOX;
-        } else if (this.previous.gapZ == this.next.gapZ) {
+        } else if (gapZ[previous[gap]] == gapZ[next[gap]]) {
             ret = Situation.EQUAL_SIDES;
         } else {
             ret = Situation.DIFFERENT_SIDES;
@@ -59,49 +93,189 @@ public class ScrapPad {
         return ret;
     }
 
-    public void updateGaps(long gapX, long gapZ) {
-        this.gapX = gapX;
-        this.gapZ = gapZ;
+    /**
+     * @return the leftmost gap with the smallest z coordinate.
+     */
+    public int findSmallestZ() {
+        return heap[0];
     }
 
-    public ScrapPad getPrevious() {
-        return previous;
+    /**
+     * Adds a gap right after the given one.
+     * @return the new gap.
+     */
+    public int insertAfter(int gap, long gapX, long gapZ) {
+        int added = allocate(gapX, gapZ);
+        previous[added] = gap;
+        next[added] = next[gap];
+        if (next[gap] != NONE) {
+            previous[next[gap]] = added;
+        }
+        next[gap] = added;
+        return added;
     }
 
-    public void setPrevious(ScrapPad previous) {
-        this.previous = previous;
+    /**
+     * Adds a gap right before the given one, which must not be the first gap.
+     * @return the new gap.
+     */
+    public int insertBefore(int gap, long gapX, long gapZ) {
+        return insertAfter(previous[gap], gapX, gapZ);
     }
 
-    public ScrapPad getNext() {
-        return next;
+    /**
+     * Unlinks a gap from the edge; its index may be reused by the next inserted gap.
+     */
+    public void remove(int gap) {
+        if (previous[gap] != NONE) {
+            next[previous[gap]] = next[gap];
+        } else {
+            first = next[gap];
+        }
+        if (next[gap] != NONE) {
+            previous[next[gap]] = previous[gap];
+        }
+        heapRemove(gap);
+        next[gap] = free;
+        free = gap;
     }
 
-    public void setNext(ScrapPad next) {
-        this.next = next;
+    public void updateGaps(int gap, long gapX, long gapZ) {
+        this.gapX[gap] = gapX;
+        this.gapZ[gap] = gapZ;
+        heapUpdate(gap);
     }
 
-    public long getGapX() {
-        return gapX;
+    public int getFirst() {
+        return first;
     }
 
-    public void setGapX(long gapX) {
-        this.gapX = gapX;
+    public int getPrevious(int gap) {
+        return previous[gap];
     }
 
-    public void incrementGapX(long toIncrement) {
-        this.gapX += toIncrement;
+    public int getNext(int gap) {
+        return next[gap];
     }
 
-    public long getGapZ() {
-        return gapZ;
+    public long getGapX(int gap) {
+        return gapX[gap];
     }
 
-    public void setGapZ(long gapZ) {
-        this.gapZ = gapZ;
+    public void setGapX(int gap, long gapX) {
+        this.gapX[gap] = gapX;
+        heapUpdate(gap);
     }
 
-    public void incrementGapZ(long toIncrement) {
-        this.gapZ += toIncrement;
+    public void incrementGapX(int gap, long toIncrement) {
+        setGapX(gap, gapX[gap] + toIncrement);
+    }
+
+    public long getGapZ(int gap) {
+        return gapZ[gap];
+    }
+
+    public void setGapZ(int gap, long gapZ) {
+        this.gapZ[gap] = gapZ;
+        heapUpdate(gap);
+    }
+
+    public void incrementGapZ(int gap, long toIncrement) {
+        setGapZ(gap, gapZ[gap] + toIncrement);
+    }
+
+    /**
+     * @return the number of gaps added since this edge was created, including the ones made by {@link #reset(long)}.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    private int allocate(long gapX, long gapZ) {
+        int gap;
+        if (free != NONE) {
+            gap = free;
+            free = next[gap];
+        } else {
+            if (used == this.gapX.length) {
+                grow();
+            }
+            gap = used++;
+        }
+        created++;
+        this.gapX[gap] = gapX;
+        this.gapZ[gap] = gapZ;
+        heapPosition[gap] = heapSize;
+        heap[heapSize++] = gap;
+        siftUp(heapPosition[gap]);
+        return gap;
+    }
+
+    private void grow() {
+        int capacity = this.gapX.length * 2;
+        previous = Arrays.copyOf(previous, capacity);
+        next = Arrays.copyOf(next, capacity);
+        gapX = Arrays.copyOf(gapX, capacity);
+        gapZ = Arrays.copyOf(gapZ, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        heapPosition = Arrays.copyOf(heapPosition, capacity);
+    }
+
+    private boolean isLower(int gap, int other) {
+        return gapZ[gap] < gapZ[other] || (gapZ[gap] == gapZ[other] && gapX[gap] < gapX[other]);
+    }
+
+    private void heapUpdate(int gap) {
+        int position = heapPosition[gap];
+        siftUp(position);
+        siftDown(heapPosition[gap]);
+    }
+
+    private void heapRemove(int gap) {
+        int position = heapPosition[gap];
+        int last = heap[--heapSize];
+        if (last != gap) {
+            heap[position] = last;
+            heapPosition[last] = position;
+            siftUp(position);
+            siftDown(heapPosition[last]);
+        }
+    }
+
+    private void siftUp(int position) {
+        int gap = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!isLower(gap, heap[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heapPosition[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = gap;
+        heapPosition[gap] = position;
+    }
+
+    private void siftDown(int position) {
+        int gap = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && isLower(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!isLower(heap[child], gap)) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapPosition[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = gap;
+        heapPosition[gap] = position;
     }
 
     public enum Situation {
@@ -1,8 +1,19 @@
 package dev.rsoliveira.tools.binpacking.domain;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The result of packing a list of items into a container.
+ * The volumes, percentages and number of packed units are known as soon as the solution is created; the lists of
+ * packed, unpacked and remaining items may be built only when one of them is first read, so callers that only check
+ * the totals don't pay for them.
+ */
 public class Solution {
 
     private double packedVolume;
@@ -11,8 +22,14 @@ public class Solution {
     private double totalContainerVolume;
     private double percentageContainerVolumeUsed;
     private double percentagePackedItemsVolume;
+    private int packedUnitCount;
     private boolean completePacking;
+    private boolean partial;
 
+    /**
+     * Supplies the result items the lists are built from; null once the lists are built.
+     */
+    private Supplier<List<Item>> resultItems;
     private List<Item> packedItems;
     private List<Item> unpackedItems;
     private List<Item> inputItems;
@@ -28,8 +45,6 @@ public class Solution {
         this.totalContainerVolume = containerOrientation.getVolume();
         this.percentageContainerVolumeUsed = bestVolume * 100f / this.totalContainerVolume;
 
-        this.packedItems = new ArrayList<>();
-        this.unpackedItems = new ArrayList<>();
         long itemVolume = 0;
         for (Item item : resultItems) {
             itemVolume += item.getVolume();
@@ -37,34 +52,105 @@ public class Solution {
         this.totalItemVolume = itemVolume;
         this.percentagePackedItemsVolume = bestVolume * 100f / this.totalItemVolume;
 
+        listItems(resultItems);
+        for (Item item : packedItems) {
+            this.packedVolume += item.getVolume();
+        }
+        this.packedUnitCount = packedItems.size();
+        this.completePacking = this.packedItems.size() == resultItems.size();
+    }
+
+    /**
+     * Creates a solution whose lists of items are built only when first read.
+     * @param inputItems the items given to pack.
+     * @param resultItems supplies one item per unit, packed or not, in the order they are to be listed; it's called
+     *                    at most once.
+     * @param containerOrientation the container orientation used by the packing.
+     * @param bestVolume the volume of all packed units.
+     * @param totalItemVolume the volume of all units.
+     * @param packedUnitCount the number of packed units.
+     * @param completePacking true if all units were packed.
+     */
+    public Solution(List<Item> inputItems, Supplier<List<Item>> resultItems, Volume containerOrientation,
+                    double bestVolume, double totalItemVolume, int packedUnitCount, boolean completePacking) {
+        this(inputItems, resultItems, containerOrientation, bestVolume, totalItemVolume, packedUnitCount,
+                completePacking, false);
+    }
+
+    /**
+     * Same as {@link #Solution(List, Supplier, Volume, double, double, int, boolean)}, for a packing that may come
+     * from a search stopped before trying all candidates.
+     * @param partial true if the search was stopped early, so a better packing may exist.
+     */
+    public Solution(List<Item> inputItems, Supplier<List<Item>> resultItems, Volume containerOrientation,
+                    double bestVolume, double totalItemVolume, int packedUnitCount, boolean completePacking,
+                    boolean partial) {
+        this.partial = partial;
+        this.packedUnitCount = packedUnitCount;
+        this.inputItems = inputItems;
+        this.resultItems = resultItems;
+        this.containerOrientation = containerOrientation;
+        this.bestSolutionVolume = bestVolume;
+        this.packedVolume = bestVolume;
+
+        this.totalContainerVolume = containerOrientation.getVolume();
+        this.percentageContainerVolumeUsed = bestVolume * 100f / this.totalContainerVolume;
+
+        this.totalItemVolume = totalItemVolume;
+        this.percentagePackedItemsVolume = bestVolume * 100f / this.totalItemVolume;
+        this.completePacking = completePacking;
+    }
+
+    /**
+     * Builds the lists of items from the supplied result items, if not built yet.
+     */
+    private synchronized void materialize() {
+        if (resultItems != null) {
+            listItems(resultItems.get());
+            resultItems = null;
+        }
+    }
+
+    private void listItems(List<Item> resultItems) {
+        this.packedItems = new ArrayList<>();
+        this.unpackedItems = new ArrayList<>();
         for (Item item : resultItems) {
             if (item.isPacked()) {
                 packedItems.add(item);
-                this.packedVolume += item.getVolume();
             } else {
                 unpackedItems.add(item);
             }
         }
-        this.completePacking = this.packedItems.size() == resultItems.size();
+        this.remainingItems = listRemainingItems(inputItems, this.packedItems);
+    }
 
-        this.remainingItems = new ArrayList<>();
-        for (Item item : inputItems) {
-            this.remainingItems.add((Item) item.clone());
+    /**
+     * Lists the input items that were not fully packed, each with the quantity left to pack.
+     * Packed units are counted by item code; when an item is fully packed, all the items sharing its code are
+     * left out.
+     */
+    private static List<Item> listRemainingItems(List<Item> inputItems, List<Item> packedItems) {
+        Map<String, Integer> packedByCode = new HashMap<>();
+        for (Item packed : packedItems) {
+            packedByCode.merge(packed.getCode(), 1, Integer::sum);
         }
-        List<Item> toRemove = new ArrayList<>();
-        for (Item item : remainingItems) {
-            int cont = 0;
-            for (Item packed : this.packedItems) {
-                if (item.getCode().equals(packed.getCode())) {
-                    cont++;
-                }
+
+        Set<String> fullyPacked = new HashSet<>();
+        for (Item item : inputItems) {
+            if (item.getQuantity() == packedByCode.getOrDefault(item.getCode(), 0)) {
+                fullyPacked.add(item.getCode());
             }
-            if (item.getQuantity() == cont) {
-                toRemove.add(item);
+        }
+
+        List<Item> remaining = new ArrayList<>();
+        for (Item item : inputItems) {
+            if (!fullyPacked.contains(item.getCode())) {
+                Item copy = (Item) item.clone();
+                copy.setQuantity(item.getQuantity() - packedByCode.getOrDefault(item.getCode(), 0));
+                remaining.add(copy);
             }
-            item.setQuantity(item.getQuantity() - cont);
         }
-        this.remainingItems.removeAll(toRemove);
+        return remaining;
     }
 
     public double getBestSolutionVolume() {
@@ -80,10 +166,12 @@ public class Solution {
     }
 
     public List<Item> getPackedItems() {
+        materialize();
         return packedItems;
     }
 
     public List<Item> getUnpackedItems() {
+        materialize();
         return unpackedItems;
     }
 
@@ -95,11 +183,27 @@ public class Solution {
         return containerOrientation;
     }
 
+    /**
+     * @return the number of packed units, the size of {@link #getPackedItems()}, without building the lists.
+     */
+    public int getPackedUnitCount() {
+        return packedUnitCount;
+    }
+
     public boolean isCompletePacking() {
         return completePacking;
     }
 
+    /**
+     * @return true if the packing comes from a search stopped by a time budget or a cancellation before trying all
+     * candidates; the packing is valid, but a better one may exist.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
     public List<Item> getRemainingItems() {
+        materialize();
         return remainingItems;
     }
 
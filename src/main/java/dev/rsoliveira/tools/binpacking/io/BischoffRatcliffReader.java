@@ -0,0 +1,68 @@
+package dev.rsoliveira.tools.binpacking.io;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads packing problems in the format of the Bischoff-Ratcliff test problems:
+ * <pre>
+ * 100                  the number of problems
+ *  1 2502505           the problem number p, and the seed used to generate it
+ *  587 233 220         container length, width, height
+ *  3                   the number of item types n
+ *  1 108 0 76 0 30 1 40
+ *  ...                 one line for each item type
+ * </pre>
+ * An item type line holds the type number, each of the 3 dimensions followed by a 0/1 indicator of whether the
+ * item may stand on it, and the number of units.
+ * The indicators are not kept: both container and items may be rotated in all directions.
+ */
+public class BischoffRatcliffReader {
+
+    /**
+     * Reads all problems.
+     * @param input the problems, in the Bischoff-Ratcliff format.
+     * @return the problems, in the order they were read.
+     * @throws IOException if the input can't be read, or isn't in the expected format.
+     */
+    public List<PackingProblem> read(Reader input) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        List<PackingProblem> problems = new ArrayList<>();
+        int total = Integer.parseInt(readLine(reader)[0]);
+        for (int i = 0; i < total; i++) {
+            int number = Integer.parseInt(readLine(reader)[0]);
+            String[] dimensions = readLine(reader);
+            Container container = new Container(1, Long.parseLong(dimensions[0]), Long.parseLong(dimensions[1]),
+                    Long.parseLong(dimensions[2]), ItemRotation.FULL);
+
+            int types = Integer.parseInt(readLine(reader)[0]);
+            List<Item> items = new ArrayList<>(types);
+            for (int j = 0; j < types; j++) {
+                String[] type = readLine(reader);
+                if (type.length < 8) {
+                    throw new IOException("Invalid item type of problem " + number + ": " + String.join(" ", type));
+                }
+                items.add(new Item(Integer.parseInt(type[0]), type[0], Long.parseLong(type[1]),
+                        Long.parseLong(type[3]), Long.parseLong(type[5]), Integer.parseInt(type[7]),
+                        ItemRotation.FULL));
+            }
+            problems.add(new PackingProblem(number, container, items));
+        }
+        return problems;
+    }
+
+    private String[] readLine(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("Unexpected end of input");
+        }
+        return line.trim().split("\\s+");
+    }
+}
@@ -0,0 +1,37 @@
+package dev.rsoliveira.tools.binpacking.io;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+
+import java.util.List;
+
+/**
+ * A packing problem read from a file: a container and the items to pack into it.
+ */
+public class PackingProblem {
+
+    /**
+     * The problem number in the file.
+     */
+    private int number;
+    private Container container;
+    private List<Item> items;
+
+    public PackingProblem(int number, Container container, List<Item> items) {
+        this.number = number;
+        this.container = container;
+        this.items = items;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public Container getContainer() {
+        return container;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+}
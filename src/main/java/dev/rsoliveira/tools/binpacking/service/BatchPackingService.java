@@ -0,0 +1,159 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Packs many orders concurrently on a bounded pool of worker threads.
+ * At most {@code threads + queueCapacity} orders are accepted at a time; once that limit is reached, submitting
+ * another order blocks the caller until one of the accepted orders finishes.
+ * Each order is packed with {@link PackingService#simulate(dev.rsoliveira.tools.binpacking.domain.Container, List)}.
+ */
+public class BatchPackingService implements AutoCloseable {
+
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+
+    private final PackingService service;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore permits;
+
+    private final LongAdder submittedOrders = new LongAdder();
+    private final LongAdder completedOrders = new LongAdder();
+    private final LongAdder failedOrders = new LongAdder();
+    private final LongAdder packedUnits = new LongAdder();
+    private final LongAdder containers = new LongAdder();
+    private final LongAdder packingNanos = new LongAdder();
+    private final AtomicLong firstSubmitNanos = new AtomicLong();
+
+    /**
+     * @param service the service used to pack each order.
+     * @param threads the number of worker threads.
+     * @param queueCapacity the number of orders that can wait for a worker thread.
+     */
+    public BatchPackingService(PackingService service, int threads, int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity cannot be negative: " + queueCapacity);
+        }
+        this.service = service;
+        this.permits = new Semaphore(threads + queueCapacity);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new WorkerFactory());
+    }
+
+    /**
+     * Submits an order for packing, blocking while the pool is full.
+     * @param request the container and items to pack.
+     * @return a future completed with the order's solutions, one per container used.
+     */
+    public CompletableFuture<List<Solution>> submit(PackingRequest request) {
+        CompletableFuture<List<Solution>> future = new CompletableFuture<>();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        firstSubmitNanos.compareAndSet(0, System.nanoTime());
+        submittedOrders.increment();
+        try {
+            executor.execute(() -> pack(request, future));
+        } catch (RuntimeException e) {
+            permits.release();
+            failedOrders.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Submits all orders for packing, in the given order, blocking while the pool is full.
+     * @param requests the orders to pack.
+     * @return a future per order, in the same order as the requests.
+     */
+    public List<CompletableFuture<List<Solution>>> submitAll(List<PackingRequest> requests) {
+        List<CompletableFuture<List<Solution>>> futures = new ArrayList<>(requests.size());
+        for (PackingRequest request : requests) {
+            futures.add(submit(request));
+        }
+        return futures;
+    }
+
+    /**
+     * @return the throughput figures of all orders submitted so far.
+     */
+    public BatchStatistics getStatistics() {
+        long start = firstSubmitNanos.get();
+        return new BatchStatistics(
+                submittedOrders.sum(),
+                completedOrders.sum(),
+                failedOrders.sum(),
+                packedUnits.sum(),
+                containers.sum(),
+                packingNanos.sum(),
+                start == 0 ? 0 : System.nanoTime() - start);
+    }
+
+    /**
+     * Stops accepting orders and waits for the accepted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting for the accepted orders
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pack(PackingRequest request, CompletableFuture<List<Solution>> future) {
+        long start = System.nanoTime();
+        try {
+            List<Solution> solutions = service.simulate(request.getContainer(), request.getItems());
+            packingNanos.add(System.nanoTime() - start);
+            for (Solution solution : solutions) {
+                packedUnits.add(solution.getPackedUnitCount());
+            }
+            containers.add(solutions.size());
+            completedOrders.increment();
+            future.complete(solutions);
+        } catch (RuntimeException | Error e) {
+            packingNanos.add(System.nanoTime() - start);
+            failedOrders.increment();
+            future.completeExceptionally(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static class WorkerFactory implements ThreadFactory {
+
+        private final int pool = poolNumber.incrementAndGet();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "packing-batch-" + pool + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
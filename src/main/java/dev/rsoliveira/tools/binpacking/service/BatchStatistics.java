@@ -0,0 +1,112 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregate throughput figures of a {@link BatchPackingService}, taken at a point in time.
+ */
+public class BatchStatistics {
+
+    private final long submittedOrders;
+    private final long completedOrders;
+    private final long failedOrders;
+    private final long packedUnits;
+    private final long containers;
+    private final long packingNanos;
+    private final long elapsedNanos;
+
+    public BatchStatistics(long submittedOrders, long completedOrders, long failedOrders, long packedUnits,
+                           long containers, long packingNanos, long elapsedNanos) {
+        this.submittedOrders = submittedOrders;
+        this.completedOrders = completedOrders;
+        this.failedOrders = failedOrders;
+        this.packedUnits = packedUnits;
+        this.containers = containers;
+        this.packingNanos = packingNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the number of orders accepted for packing.
+     */
+    public long getSubmittedOrders() {
+        return submittedOrders;
+    }
+
+    /**
+     * @return the number of orders packed successfully.
+     */
+    public long getCompletedOrders() {
+        return completedOrders;
+    }
+
+    /**
+     * @return the number of orders whose packing ended with an exception.
+     */
+    public long getFailedOrders() {
+        return failedOrders;
+    }
+
+    /**
+     * @return the number of orders accepted but not finished yet, either queued or being packed.
+     */
+    public long getPendingOrders() {
+        return submittedOrders - completedOrders - failedOrders;
+    }
+
+    /**
+     * @return the number of units packed by the completed orders.
+     */
+    public long getPackedUnits() {
+        return packedUnits;
+    }
+
+    /**
+     * @return the number of containers used by the completed orders.
+     */
+    public long getContainers() {
+        return containers;
+    }
+
+    /**
+     * @return the time spent packing by all worker threads, summed.
+     */
+    public long getPackingNanos() {
+        return packingNanos;
+    }
+
+    /**
+     * @return the wall time since the first order was submitted.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the completed orders per second of wall time.
+     */
+    public double getOrdersPerSecond() {
+        return elapsedNanos == 0 ? 0 : completedOrders * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return the mean packing time of a finished order, in milliseconds.
+     */
+    public double getAveragePackingMillis() {
+        long finished = completedOrders + failedOrders;
+        return finished == 0 ? 0 : packingNanos / (double) TimeUnit.MILLISECONDS.toNanos(1) / finished;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchStatistics{" +
+                "submittedOrders=" + submittedOrders +
+                ", completedOrders=" + completedOrders +
+                ", failedOrders=" + failedOrders +
+                ", packedUnits=" + packedUnits +
+                ", containers=" + containers +
+                ", ordersPerSecond=" + getOrdersPerSecond() +
+                ", averagePackingMillis=" + getAveragePackingMillis() +
+                '}';
+    }
+}
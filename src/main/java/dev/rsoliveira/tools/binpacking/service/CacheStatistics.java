@@ -0,0 +1,88 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+/**
+ * Hit and miss figures of a {@link SolutionCache}, taken at a point in time.
+ */
+public class CacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long coalesced;
+    private final long evictions;
+    private final int size;
+    private final int maxEntries;
+
+    public CacheStatistics(long hits, long misses, long coalesced, long evictions, int size, int maxEntries) {
+        this.hits = hits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+        this.evictions = evictions;
+        this.size = size;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the number of simulations answered from the cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of simulations run by the engine, as the cache had no solution for them.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of simulations that waited for an identical one, running at the same time, to share its
+     * solution.
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return the number of solutions dropped to make room for newer ones.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of solutions in the cache.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the most solutions the cache keeps.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return the share of simulations that didn't run the engine, being answered from the cache or by an identical
+     * simulation, from 0 to 1.
+     */
+    public double getHitRate() {
+        long requests = hits + coalesced + misses;
+        return requests == 0 ? 0 : (hits + coalesced) / (double) requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", coalesced=" + coalesced +
+                ", evictions=" + evictions +
+                ", size=" + size +
+                ", maxEntries=" + maxEntries +
+                ", hitRate=" + getHitRate() +
+                '}';
+    }
+}
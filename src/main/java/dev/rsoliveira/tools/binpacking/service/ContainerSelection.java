@@ -0,0 +1,67 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+
+/**
+ * The result of choosing a container from a catalog with a {@link ContainerSelector}.
+ */
+public class ContainerSelection {
+
+    private final Container container;
+    private final Solution solution;
+    private final int candidates;
+    private final int simulated;
+
+    public ContainerSelection(Container container, Solution solution, int candidates, int simulated) {
+        this.container = container;
+        this.solution = solution;
+        this.candidates = candidates;
+        this.simulated = simulated;
+    }
+
+    /**
+     * @return true if a container of the catalog fits all the items.
+     */
+    public boolean isFound() {
+        return container != null;
+    }
+
+    /**
+     * @return the cheapest container that fits all the items; null if none does.
+     */
+    public Container getContainer() {
+        return container;
+    }
+
+    /**
+     * @return the packing of all the items into the chosen container; null if no container fits them.
+     */
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return the number of containers of the catalog that passed the dimension and volume filters.
+     */
+    public int getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @return the number of candidates whose packing was simulated to the end; the others were skipped or stopped
+     * once a cheaper container was known to fit.
+     */
+    public int getSimulated() {
+        return simulated;
+    }
+
+    @Override
+    public String toString() {
+        return "ContainerSelection{" +
+                "container=" + (container != null ? container.getId() : null) +
+                ", candidates=" + candidates +
+                ", simulated=" + simulated +
+                '}';
+    }
+}
@@ -0,0 +1,257 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+import dev.rsoliveira.tools.binpacking.simulation.CancellationToken;
+import dev.rsoliveira.tools.binpacking.simulation.ISimulation;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Chooses, from a catalog of container types, the cheapest one that fits all the items of an order.
+ * <p>
+ * The catalog is indexed once, by volume and by sorted dimensions. For each order, the containers smaller than the
+ * total item volume, or too small for any item in any orientation, are left out without simulating them; the others
+ * are sorted by cost, and simulated in parallel. As soon as a container is known to fit all the items, the
+ * simulations of the more expensive ones are cancelled; the cheaper ones always run to the end, so the chosen
+ * container doesn't depend on which simulation finished first.
+ * <p>
+ * The selector keeps no state between calls, so a single instance can be shared by any number of threads.
+ */
+public class ContainerSelector {
+
+    private final ISimulation<Container, Item> simulator;
+    private final Executor executor;
+
+    /**
+     * The catalog, sorted by volume, with the volume, the dimensions sorted from the smallest, and the allowed
+     * orientations of each container.
+     */
+    private final Container[] containers;
+    private final double[] volumes;
+    private final long[][] sortedDimensions;
+    private final Volume[][] orientations;
+
+    /**
+     * Creates a selector that simulates on the common fork-join pool, with a {@link PalletPackingSimulation}.
+     * @param catalog the container types to choose from.
+     */
+    public ContainerSelector(List<Container> catalog) {
+        this(catalog, new PalletPackingSimulation(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param catalog the container types to choose from.
+     * @param simulator a reentrant packing engine; the candidates are only cancelled early if it honours the
+     *                  cancellation token of {@link ISimulation#simulate(Volume, List, java.time.Duration,
+     *                  CancellationToken)}.
+     * @param executor runs the simulations of the candidates.
+     */
+    public ContainerSelector(List<Container> catalog, ISimulation<Container, Item> simulator, Executor executor) {
+        this.simulator = simulator;
+        this.executor = executor;
+
+        this.containers = catalog.toArray(new Container[0]);
+        Arrays.sort(containers, Comparator.comparingDouble(Container::getVolume));
+        this.volumes = new double[containers.length];
+        this.sortedDimensions = new long[containers.length][];
+        this.orientations = new Volume[containers.length][];
+        for (int i = 0; i < containers.length; i++) {
+            Container container = containers[i];
+            volumes[i] = container.getVolume();
+            sortedDimensions[i] = sortedDimensions(container);
+            orientations[i] = new Volume[PackingBounds.getMaxOrientation(container.getRotation())];
+            for (int orientation = 1; orientation <= orientations[i].length; orientation++) {
+                orientations[i][orientation - 1] = container.atOrientation(orientation);
+            }
+        }
+    }
+
+    /**
+     * Chooses the smallest container that fits all the items.
+     * @param items the items of the order.
+     * @return the chosen container and its packing, if any container fits.
+     */
+    public ContainerSelection select(List<Item> items) {
+        return select(items, Container::getVolume);
+    }
+
+    /**
+     * Chooses the cheapest container that fits all the items.
+     * Containers of the same cost are chosen by volume, then by their order in the catalog.
+     * @param items the items of the order.
+     * @param cost the cost of using a container.
+     * @return the chosen container and its packing, if any container fits.
+     */
+    public ContainerSelection select(List<Item> items, ToDoubleFunction<Container> cost) {
+        List<Container> candidates = filter(items);
+        candidates.sort(Comparator.comparingDouble(cost));
+
+        int count = candidates.size();
+        CancellationToken[] tokens = new CancellationToken[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = new CancellationToken();
+        }
+        AtomicInteger bestIndex = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicInteger simulated = new AtomicInteger();
+
+        List<CompletableFuture<Solution>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> evaluate(candidates.get(index), items, index, tokens, bestIndex, simulated), executor));
+        }
+
+        Container container = null;
+        Solution solution = null;
+        for (int i = 0; i < count; i++) {
+            Solution candidate = join(futures.get(i));
+            if (candidate != null && container == null) {
+                container = candidates.get(i);
+                solution = candidate;
+            }
+        }
+        return new ContainerSelection(container, solution, count, simulated.get());
+    }
+
+    /**
+     * Simulates a candidate, unless a cheaper one is already known to fit.
+     * @return the packing of the candidate, if it fits all the items; null otherwise.
+     */
+    private Solution evaluate(Container container, List<Item> items, int index, CancellationToken[] tokens,
+                              AtomicInteger bestIndex, AtomicInteger simulated) {
+        if (index > bestIndex.get()) {
+            return null;
+        }
+        Solution solution = simulator.simulate(container, items, null, tokens[index]);
+        if (solution.isPartial()) {
+            return null;
+        }
+        simulated.incrementAndGet();
+        if (!solution.isCompletePacking()) {
+            return null;
+        }
+
+        int best;
+        while (index < (best = bestIndex.get())) {
+            if (bestIndex.compareAndSet(best, index)) {
+                for (int i = index + 1; i < Math.min(best, tokens.length); i++) {
+                    tokens[i].cancel();
+                }
+                break;
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Lists the containers that may fit all the items: at least as large as their total volume, and with one
+     * orientation where every item fits in one of its own orientations.
+     * @return the containers, sorted by volume.
+     */
+    private List<Container> filter(List<Item> items) {
+        double totalVolume = 0;
+        long[] required = new long[3];
+        List<Item> toPack = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item.getQuantity() > 0) {
+                toPack.add(item);
+                totalVolume += item.getTotalVolume();
+                long[] dimensions = sortedDimensions(item);
+                for (int i = 0; i < 3; i++) {
+                    required[i] = Math.max(required[i], dimensions[i]);
+                }
+            }
+        }
+
+        List<Container> candidates = new ArrayList<>();
+        for (int i = firstWithVolume(totalVolume); i < containers.length; i++) {
+            long[] dimensions = sortedDimensions[i];
+            if (dimensions[0] >= required[0] && dimensions[1] >= required[1] && dimensions[2] >= required[2] &&
+                fitsAll(orientations[i], toPack)) {
+                candidates.add(containers[i]);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return the index of the first container of the catalog whose volume is not lower than the given one.
+     */
+    private int firstWithVolume(double volume) {
+        int low = 0, high = volumes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (volumes[middle] < volume) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean fitsAll(Volume[] containerOrientations, List<Item> items) {
+        for (Volume container : containerOrientations) {
+            boolean fits = true;
+            for (Item item : items) {
+                if (!fits(container, item)) {
+                    fits = false;
+                    break;
+                }
+            }
+            if (fits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean fits(Volume container, Item item) {
+        int max = PackingBounds.getMaxOrientation(item.getRotation());
+        for (int orientation = 1; orientation <= max; orientation++) {
+            Volume rotated = item.atOrientation(orientation);
+            if (rotated.getDimension1() <= container.getDimension1() &&
+                rotated.getDimension2() <= container.getDimension2() &&
+                rotated.getDimension3() <= container.getDimension3()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] sortedDimensions(Volume volume) {
+        long[] dimensions = {volume.getDimension1(), volume.getDimension2(), volume.getDimension3()};
+        Arrays.sort(dimensions);
+        return dimensions;
+    }
+
+    /**
+     * Waits for the simulation of a candidate, rethrowing what it threw.
+     */
+    private static Solution join(CompletableFuture<Solution> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lower bounds on the number of containers an order needs, computed from volumes and dimensions only, without
+ * simulating any packing.
+ * <ul>
+ *     <li>the volume bound: the total item volume, divided by the container volume, rounded up;</li>
+ *     <li>the large item bound: units larger than half the container in all three dimensions, in every orientation
+ *     they fit in, can't share a container with each other; each one takes a container of its own, and the other
+ *     units need more containers once the space those leave is filled.</li>
+ * </ul>
+ * Both bounds follow the allowed rotations of the container and of each item. Units that fit in no orientation of the
+ * container are left out of the bounds, and listed on their own.
+ */
+public class PackingBounds {
+
+    private final long volumeBound;
+    private final long largeItemBound;
+    private final long packableUnits;
+    private final double packableVolume;
+    private final double containerVolume;
+    private final List<Item> unpackableItems;
+
+    private PackingBounds(long volumeBound, long largeItemBound, long packableUnits, double packableVolume,
+                          double containerVolume, List<Item> unpackableItems) {
+        this.volumeBound = volumeBound;
+        this.largeItemBound = largeItemBound;
+        this.packableUnits = packableUnits;
+        this.packableVolume = packableVolume;
+        this.containerVolume = containerVolume;
+        this.unpackableItems = unpackableItems;
+    }
+
+    /**
+     * Computes the bounds of packing a list of items into copies of a container.
+     * @param container the container used as template for packing.
+     * @param items the items to pack.
+     * @return the bounds.
+     */
+    public static PackingBounds of(Container container, List<Item> items) {
+        Volume[] containerOrientations = new Volume[getMaxOrientation(container.getRotation())];
+        for (int i = 0; i < containerOrientations.length; i++) {
+            containerOrientations[i] = container.atOrientation(i + 1);
+        }
+
+        double containerVolume = container.getVolume();
+        long packableUnits = 0;
+        double packableVolume = 0;
+        double largeVolume = 0;
+        long largeUnits = 0;
+        List<Item> unpackable = new ArrayList<>();
+        for (Item item : items) {
+            if (item.getQuantity() <= 0) {
+                continue;
+            }
+            boolean fits = false;
+            boolean large = true;
+            int max = getMaxOrientation(item.getRotation());
+            for (Volume orientation : containerOrientations) {
+                for (int i = 1; i <= max; i++) {
+                    Volume rotated = item.atOrientation(i);
+                    if (rotated.getDimension1() <= orientation.getDimension1() &&
+                        rotated.getDimension2() <= orientation.getDimension2() &&
+                        rotated.getDimension3() <= orientation.getDimension3()) {
+                        fits = true;
+                        if (2 * rotated.getDimension1() <= orientation.getDimension1() ||
+                            2 * rotated.getDimension2() <= orientation.getDimension2() ||
+                            2 * rotated.getDimension3() <= orientation.getDimension3()) {
+                            large = false;
+                        }
+                    }
+                }
+            }
+            if (!fits) {
+                unpackable.add(item);
+                continue;
+            }
+            packableUnits += item.getQuantity();
+            packableVolume += item.getTotalVolume();
+            if (large) {
+                largeUnits += item.getQuantity();
+                largeVolume += item.getTotalVolume();
+            }
+        }
+
+        long volumeBound = (long) Math.ceil(packableVolume / containerVolume);
+        // the other units first fill the space left by the large ones, then whole containers
+        double overflow = (packableVolume - largeVolume) - (largeUnits * containerVolume - largeVolume);
+        long largeItemBound = largeUnits + (overflow > 0 ? (long) Math.ceil(overflow / containerVolume) : 0);
+        return new PackingBounds(volumeBound, largeItemBound, packableUnits, packableVolume, containerVolume,
+                unpackable);
+    }
+
+    /**
+     * @return the fewest containers the packable units may fit in; 0 if there are none.
+     */
+    public long getMinContainers() {
+        return Math.max(volumeBound, largeItemBound);
+    }
+
+    /**
+     * @return the fewest containers that hold the volume of the packable units.
+     */
+    public long getVolumeBound() {
+        return volumeBound;
+    }
+
+    /**
+     * @return the fewest containers for the units that can't share a container, and the other units.
+     */
+    public long getLargeItemBound() {
+        return largeItemBound;
+    }
+
+    /**
+     * @return the highest fill, from 0 to 1, the containers can have on average, using the fewest containers.
+     */
+    public double getMaxAverageFill() {
+        long containers = getMinContainers();
+        return containers == 0 ? 0 : packableVolume / (containers * containerVolume);
+    }
+
+    /**
+     * @return the number of units that fit in the container, on their own.
+     */
+    public long getPackableUnits() {
+        return packableUnits;
+    }
+
+    /**
+     * @return the items that fit in no orientation of the container, so they can never be packed.
+     */
+    public List<Item> getUnpackableItems() {
+        return unpackableItems;
+    }
+
+    /**
+     * @return true if every item fits in the container, on its own.
+     */
+    public boolean isPackable() {
+        return unpackableItems.isEmpty();
+    }
+
+    /**
+     * @return the number of orientations, following {@link Volume#atOrientation(int)}, a rotation allows.
+     */
+    static int getMaxOrientation(ItemRotation rotation) {
+        if (rotation == null) {
+            return 1;
+        }
+        switch (rotation) {
+            case FULL:
+                return 6;
+            case HORIZONTAL:
+                return 2;
+            case NONE:
+            default:
+                return 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PackingBounds{" +
+                "minContainers=" + getMinContainers() +
+                ", volumeBound=" + volumeBound +
+                ", largeItemBound=" + largeItemBound +
+                ", maxAverageFill=" + getMaxAverageFill() +
+                ", unpackableItems=" + unpackableItems.size() +
+                '}';
+    }
+}
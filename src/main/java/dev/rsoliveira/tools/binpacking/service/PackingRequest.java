@@ -0,0 +1,28 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+
+import java.util.List;
+
+/**
+ * A single order to pack: the container used as template and the items that will be packed into it.
+ */
+public class PackingRequest {
+
+    private final Container container;
+    private final List<Item> items;
+
+    public PackingRequest(Container container, List<Item> items) {
+        this.container = container;
+        this.items = items;
+    }
+
+    public Container getContainer() {
+        return container;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+}
@@ -3,45 +3,120 @@ package dev.rsoliveira.tools.binpacking.service;
 import dev.rsoliveira.tools.binpacking.domain.Container;
 import dev.rsoliveira.tools.binpacking.domain.Item;
 import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.simulation.CancellationToken;
+import dev.rsoliveira.tools.binpacking.simulation.IFleetSimulation;
 import dev.rsoliveira.tools.binpacking.simulation.ISimulation;
 import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Packs items into one or more containers.
+ * The service keeps no state between calls, so a single instance can be shared by any number of threads.
+ */
 public class PackingService {
 
-    private static ISimulation<Container, Item> simulator;
+    private final ISimulation<Container, Item> simulator;
 
-    private PackingService() {
-        simulator = new PalletPackingSimulation();
+    private PackingService(ISimulation<Container, Item> simulator) {
+        this.simulator = simulator;
     }
 
-    public static synchronized PackingService getInstance() {
-        return new PackingService();
+    /**
+     * @return the shared packing service.
+     */
+    public static PackingService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Creates a packing service backed by the given engine.
+     * @param simulator a reentrant packing engine.
+     * @return a new packing service.
+     */
+    public static PackingService newInstance(ISimulation<Container, Item> simulator) {
+        return new PackingService(simulator);
+    }
+
+    /**
+     * Creates a batch service that packs many orders concurrently with this service.
+     * The returned service owns its worker threads, and must be closed once all orders were submitted.
+     * @param threads the number of worker threads.
+     * @param queueCapacity the number of orders that can wait for a worker thread before submitting blocks.
+     * @return a new batch service.
+     */
+    public BatchPackingService batch(int threads, int queueCapacity) {
+        return new BatchPackingService(this, threads, queueCapacity);
     }
 
     /**
      * Simulates packing a list of items into a container, resulting in a list of solutions.
      * Each simulation iteration results in 2 lists of packed and unpacked items, and the next iteration uses
-     * the unpacked items simulate the packing, until there are no items remaining to pack.
+     * the unpacked items simulate the packing, until there are no items remaining to pack, the items remaining
+     * don't fit in the container at all, or the engine packs none of them in a new container; those are then left in
+     * the remaining items of the last solution.
      * It is best to use this method to know how many containers are possibly needed to pack all the given items.
+     * When the engine is an {@link IFleetSimulation}, all the containers are packed in a single engine session.
      * @param container the container used as template for packing.
      * @param items the list of all items that will be packed.
      * @return a list of possible packings, containing position and direction for each item inside the containers.
      */
+    @SuppressWarnings("unchecked")
     public List<Solution> simulate(Container container, List<Item> items) {
+        if (simulator instanceof IFleetSimulation) {
+            return ((IFleetSimulation<Container, Item>) simulator).simulateFleet(container, items);
+        }
         List<Solution> solutions = new ArrayList<>();
         Solution solution = simulator.simulate(container, items);
         solutions.add(solution);
-        while (!solution.getRemainingItems().isEmpty()) {
-            solution = simulator.simulate(container, solution.getRemainingItems());
+        while (hasPackableItems(container, solution.getRemainingItems())) {
+            Solution next = simulator.simulate(container, solution.getRemainingItems());
+            if (next.getPackedUnitCount() == 0) {
+                // the engine packs none of the items left, and would do the same in any further container
+                break;
+            }
+            solution = next;
             solutions.add(solution);
         }
 
         return solutions;
     }
 
+    /**
+     * Simulates packing a list of items into a container, resulting in a list of solutions, within a time budget
+     * shared by all the simulations.
+     * Once the budget runs out or the token is cancelled, the current simulation returns the best packing it found
+     * so far, flagged as partial, and no further container is simulated; its remaining items are left unpacked.
+     * @param container the container used as template for packing.
+     * @param items the list of all items that will be packed.
+     * @param timeBudget the longest time all the simulations may take; null for no limit.
+     * @param token stops the simulations when cancelled; null if they can't be cancelled.
+     * @return a list of possible packings, containing position and direction for each item inside the containers.
+     */
+    public List<Solution> simulate(Container container, List<Item> items, Duration timeBudget,
+                                   CancellationToken token) {
+        long deadline = timeBudget != null ? System.nanoTime() + timeBudget.toNanos() : 0;
+        List<Solution> solutions = new ArrayList<>();
+        List<Item> toPack = items;
+        do {
+            Duration remaining = timeBudget != null ? Duration.ofNanos(Math.max(0, deadline - System.nanoTime())) : null;
+            Solution solution = simulator.simulate(container, toPack, remaining, token);
+            if (!solutions.isEmpty() && solution.getPackedUnitCount() == 0 && !solution.isPartial()) {
+                // the engine packs none of the items left, and would do the same in any further container
+                break;
+            }
+            solutions.add(solution);
+            if (solution.isPartial()) {
+                break;
+            }
+            toPack = solution.getRemainingItems();
+        } while (hasPackableItems(container, toPack));
+
+        return solutions;
+    }
+
     /**
      * Simulates packing a list of items into a list of containers, resulting in a list of solutions.
      * Each simulation iteration results in 2 lists of packed and unpacked items, and the next iteration uses
@@ -53,7 +128,7 @@ public class PackingService {
      * @param items the list of all items that will be packed.
      * @return a list of possible packings, containing position and direction for each item inside the containers.
      */
-    public static List<Solution> simulate(List<Container> containers, List<Item> items) {
+    public List<Solution> simulate(List<Container> containers, List<Item> items) {
         List<Solution> solutions = new ArrayList<>();
 
         List<Item> remaining = new ArrayList<>(items);
@@ -71,4 +146,26 @@ public class PackingService {
 
         return solutions;
     }
+
+    /**
+     * Computes lower bounds on the number of containers needed to pack a list of items, without simulating it.
+     * @param container the container used as template for packing.
+     * @param items the list of all items that will be packed.
+     * @return the bounds, and the items that don't fit in the container at all.
+     */
+    public PackingBounds bounds(Container container, List<Item> items) {
+        return PackingBounds.of(container, items);
+    }
+
+    /**
+     * @return true if any of the items fits in the container; the others can never be packed, however many
+     * containers are used.
+     */
+    private static boolean hasPackableItems(Container container, List<Item> items) {
+        return !items.isEmpty() && PackingBounds.of(container, items).getPackableUnits() > 0;
+    }
+
+    private static class Holder {
+        private static final PackingService INSTANCE = new PackingService(new PalletPackingSimulation());
+    }
 }
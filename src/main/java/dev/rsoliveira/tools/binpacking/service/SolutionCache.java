@@ -0,0 +1,301 @@
+package dev.rsoliveira.tools.binpacking.service;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+import dev.rsoliveira.tools.binpacking.simulation.CancellationToken;
+import dev.rsoliveira.tools.binpacking.simulation.ISimulation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the solutions of recent simulations, so a packing engine runs only once for orders that repeat the same
+ * container and item types.
+ * <p>
+ * Orders are matched by a canonical key: the container dimensions and rotation, and the item types sorted by their
+ * dimensions, rotation and quantity. Item codes and ids, and the order of the items, are not part of the key; the
+ * engine always packs the items of a key in the same canonical order, with ids of their own, and the cached packing
+ * is handed to each caller with its own item codes.
+ * <p>
+ * The cache holds up to a given number of solutions, dropping the least recently used one to make room for a new one.
+ * Partial solutions, from searches stopped by a time budget or a cancellation, are never kept.
+ * <p>
+ * Identical orders that arrive while the first one is still being searched don't start searches of their own: they
+ * wait for the first search to finish, and share its solution. Only searches without a time budget or a
+ * cancellation token are shared this way, as a caller with limits can't be made to wait for them.
+ * Every caller gets its own copy of the solution, whose items it can change without affecting the other callers or
+ * the cache.
+ * <p>
+ * The cache is thread-safe, so it can back a {@link PackingService} shared by many threads:
+ * <pre>
+ *     SolutionCache cache = new SolutionCache(new PalletPackingSimulation(), 10_000);
+ *     PackingService service = PackingService.newInstance(cache);
+ * </pre>
+ */
+public class SolutionCache implements ISimulation<Container, Item> {
+
+    private static final Comparator<Item> CANONICAL_ORDER = Comparator.comparingLong(Item::getDimension1)
+            .thenComparingLong(Item::getDimension2)
+            .thenComparingLong(Item::getDimension3)
+            .thenComparingInt(item -> rotationOrdinal(item.getRotation()))
+            .thenComparingInt(Item::getQuantity);
+
+    private final ISimulation<Container, Item> simulator;
+    private final int maxEntries;
+    private final Map<Key, Solution> solutions;
+    /**
+     * The searches running for orders not in the cache yet, guarded by the lock of the solutions.
+     */
+    private final Map<Key, CompletableFuture<Solution>> searches = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param simulator the packing engine that runs the simulations missing from the cache.
+     * @param maxEntries the most solutions the cache keeps.
+     */
+    public SolutionCache(ISimulation<Container, Item> simulator, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+        }
+        this.simulator = simulator;
+        this.maxEntries = maxEntries;
+        this.solutions = new LinkedHashMap<Key, Solution>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Solution> eldest) {
+                if (size() > SolutionCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Solution simulate(Container container, List<Item> volumes) {
+        return simulate(container, volumes, null, null);
+    }
+
+    /**
+     * Looks the order up in the cache, running the engine with the given limits when it's not there.
+     * A cached solution always comes from a complete search, so it's returned whatever the limits.
+     */
+    @Override
+    public Solution simulate(Container container, List<Item> volumes, Duration timeBudget, CancellationToken token) {
+        Order order = new Order(container, volumes);
+        boolean shared = timeBudget == null && token == null;
+
+        Solution solution;
+        CompletableFuture<Solution> search = null;
+        boolean leader = false;
+        synchronized (solutions) {
+            solution = solutions.get(order.key);
+            if (solution == null && shared) {
+                search = searches.get(order.key);
+                if (search == null) {
+                    search = new CompletableFuture<>();
+                    searches.put(order.key, search);
+                    leader = true;
+                }
+            }
+        }
+        if (solution != null) {
+            hits.increment();
+            return order.remap(solution);
+        }
+        if (search != null && !leader) {
+            coalesced.increment();
+            return order.remap(join(search));
+        }
+
+        misses.increment();
+        try {
+            solution = simulator.simulate(container, order.canonicalItems, timeBudget, token);
+        } catch (RuntimeException | Error e) {
+            if (leader) {
+                synchronized (solutions) {
+                    searches.remove(order.key);
+                }
+                search.completeExceptionally(e);
+            }
+            throw e;
+        }
+        synchronized (solutions) {
+            if (!solution.isPartial()) {
+                solutions.put(order.key, solution);
+            }
+            if (leader) {
+                searches.remove(order.key);
+            }
+        }
+        if (leader) {
+            search.complete(solution);
+        }
+        return order.remap(solution);
+    }
+
+    /**
+     * Waits for a search run by another caller, rethrowing what it threw.
+     */
+    private static Solution join(CompletableFuture<Solution> search) {
+        try {
+            return search.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops all the cached solutions; the statistics are kept.
+     */
+    public void clear() {
+        synchronized (solutions) {
+            solutions.clear();
+        }
+    }
+
+    /**
+     * @return the current hit and miss figures of the cache.
+     */
+    public CacheStatistics getStatistics() {
+        int size;
+        synchronized (solutions) {
+            size = solutions.size();
+        }
+        return new CacheStatistics(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), size, maxEntries);
+    }
+
+    private static int rotationOrdinal(ItemRotation rotation) {
+        return rotation == null ? -1 : rotation.ordinal();
+    }
+
+    /**
+     * An order put in canonical form: its key, the items the engine packs, and where each of them came from.
+     */
+    private static final class Order {
+
+        private final List<Item> items;
+        private final List<Item> canonicalItems;
+        private final int[] callerIndex;
+        private final Key key;
+
+        private Order(Container container, List<Item> items) {
+            this.items = new ArrayList<>(items);
+
+            Integer[] sorted = new Integer[items.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, Comparator.comparing(this.items::get, CANONICAL_ORDER));
+
+            this.callerIndex = new int[sorted.length];
+            this.canonicalItems = new ArrayList<>(sorted.length);
+            long[] values = new long[4 + sorted.length * 5];
+            values[0] = container.getDimension1();
+            values[1] = container.getDimension2();
+            values[2] = container.getDimension3();
+            values[3] = rotationOrdinal(container.getRotation());
+            for (int i = 0; i < sorted.length; i++) {
+                Item item = this.items.get(sorted[i]);
+                callerIndex[i] = sorted[i];
+                canonicalItems.add(new Item(i + 1, String.valueOf(i), item.getDimension1(), item.getDimension2(),
+                        item.getDimension3(), item.getQuantity(), item.getRotation()));
+                values[4 + i * 5] = item.getDimension1();
+                values[4 + i * 5 + 1] = item.getDimension2();
+                values[4 + i * 5 + 2] = item.getDimension3();
+                values[4 + i * 5 + 3] = rotationOrdinal(item.getRotation());
+                values[4 + i * 5 + 4] = item.getQuantity();
+            }
+            this.key = new Key(values);
+        }
+
+        /**
+         * @return the solution of the canonical items, told with the caller's items.
+         */
+        private Solution remap(Solution solution) {
+            return new Solution(
+                    items,
+                    () -> {
+                        List<Item> units = new ArrayList<>();
+                        for (Item unit : solution.getPackedItems()) {
+                            units.add(toCallerUnit(unit));
+                        }
+                        for (Item unit : solution.getUnpackedItems()) {
+                            units.add(toCallerUnit(unit));
+                        }
+                        return units;
+                    },
+                    copyOf(solution.getContainerOrientation()),
+                    solution.getBestSolutionVolume(),
+                    solution.getTotalItemVolume(),
+                    solution.getPackedUnitCount(),
+                    solution.isCompletePacking(),
+                    solution.isPartial());
+        }
+
+        private static Volume copyOf(Volume volume) {
+            Volume copy = volume.atOrientation(1);
+            copy.setOrientation(volume.getOrientation());
+            return copy;
+        }
+
+        private Item toCallerUnit(Item unit) {
+            Item type = items.get(callerIndex[Integer.parseInt(unit.getCode())]);
+            Item item = new Item(unit.getId(), type.getCode(), type.getDimension1(), type.getDimension2(),
+                    type.getDimension3(), type.getQuantity(), type.getRotation());
+            if (unit.isPacked()) {
+                item.setPosition(unit.getPositionX(), unit.getPositionY(), unit.getPositionZ());
+                item.packAtOrientation(unit.getOrientationX(), unit.getOrientationY(), unit.getOrientationZ());
+            }
+            return item;
+        }
+    }
+
+    /**
+     * The canonical key of an order, as a flat array of values.
+     */
+    private static final class Key {
+
+        private final long[] values;
+        private final int hash;
+
+        private Key(long[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            return Arrays.equals(values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+/**
+ * The best packing found by the candidate runs of a parallel search.
+ * Ties are resolved in favour of the run that comes first in the sequential search order, so the parallel search
+ * always reports the same candidate as the sequential one.
+ */
+class BestCandidate {
+
+    private double volume;
+    private int ordinal = Integer.MAX_VALUE;
+    private int variant;
+    private int iteration;
+    private PlacementSnapshot placement;
+    private boolean hundredPercentPacked;
+
+    /**
+     * The ordinal of the first run that packed 100%; runs after it can never become the best one.
+     */
+    private volatile int settledOrdinal = Integer.MAX_VALUE;
+
+    /**
+     * Set when a run was skipped or interrupted because the search was stopped.
+     */
+    private volatile boolean partial;
+
+    synchronized void offer(CandidateRun run, double packedVolume, PlacementSnapshot packedPlacement,
+                            boolean hundredPercent) {
+        if (packedVolume > volume || (packedVolume == volume && packedVolume > 0 && run.getOrdinal() < ordinal)) {
+            volume = packedVolume;
+            ordinal = run.getOrdinal();
+            variant = run.getContainerOrientation();
+            iteration = run.getLayerIndex();
+            placement = packedPlacement;
+            hundredPercentPacked = hundredPercent;
+        }
+        if (hundredPercent && run.getOrdinal() < settledOrdinal) {
+            settledOrdinal = run.getOrdinal();
+        }
+    }
+
+    /**
+     * @param ordinal the position of a run in the sequential search order.
+     * @return true if a run that comes before the given one has already packed 100%.
+     */
+    boolean isSettledBefore(int ordinal) {
+        return settledOrdinal < ordinal;
+    }
+
+    /**
+     * @param ordinal the position of a run in the sequential search order.
+     * @param bound the most volume the run can still pack.
+     * @return true if the run could still become the best one, packing that much.
+     */
+    synchronized boolean canBeBeatenBy(int ordinal, double bound) {
+        return bound > volume || (bound == volume && bound > 0 && ordinal < this.ordinal);
+    }
+
+    void markPartial() {
+        partial = true;
+    }
+
+    boolean isPartial() {
+        return partial;
+    }
+
+    synchronized double getVolume() {
+        return volume;
+    }
+
+    synchronized int getVariant() {
+        return variant;
+    }
+
+    synchronized int getIteration() {
+        return iteration;
+    }
+
+    synchronized PlacementSnapshot getPlacement() {
+        return placement;
+    }
+
+    synchronized boolean isHundredPercentPacked() {
+        return hundredPercentPacked;
+    }
+}
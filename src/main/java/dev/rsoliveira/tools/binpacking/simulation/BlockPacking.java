@@ -0,0 +1,599 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs orders of one or two item types without the layer search.
+ * Each layer holds units of a single type, all with the same height, arranged on the floor of the container by the
+ * best guillotine pattern of that type's footprint, mixing its two horizontal rotations when allowed. The layers are
+ * stacked along the y axis, choosing their heights by an unbounded knapsack per type; with two types, the height of
+ * the container is split between them at the point that packs the most volume.
+ * The packing is only used when it's as good as any packing can be: when it packs every unit, or, with a single
+ * type, as many units as the volume of the container holds. Otherwise the layer search runs as usual. Container
+ * orientations whose layers can't reach that packing, even holding as many units as their floor area allows, are
+ * left out before searching any floor pattern, so orders that need the layer search lose little time here.
+ */
+final class BlockPacking {
+
+    /**
+     * The most cells the knapsacks and the floor rasters of a container orientation may take; they take memory linear
+     * in its edges, so larger orientations are left out, and the layer search runs if none is left.
+     */
+    private static final int MAX_CELLS = 1 << 14;
+
+    /**
+     * The most raster point pairs a floor pattern is searched over; larger floors get the best two-block pattern.
+     */
+    private static final int MAX_RASTER_CELLS = 1 << 16;
+
+    private BlockPacking() {
+    }
+
+    /**
+     * Packs the units of a state in closed form, if it has one or two item types left and the packing found can't be
+     * beaten. The packing becomes the best one of the state.
+     * @param state the packing state, with nothing packed yet.
+     * @param maxContainerOrientation the number of container orientations to try.
+     * @return true if the state was packed; false if the layer search must run, or if the search ran out of time or
+     * was cancelled, flagging the state as partial.
+     */
+    static boolean pack(PalletPackingState state, int maxContainerOrientation) {
+        int[] types = new int[2];
+        int count = 0;
+        for (int type = 0; type < state.getTypeCount(); type++) {
+            if (state.getRemainingQuantity(type) > 0) {
+                if (count == types.length) {
+                    return false;
+                }
+                types[count++] = type;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        // a single type packs as many units as the container volume holds, or all of them
+        double target = state.getTotalItemVolume();
+        if (count == 1) {
+            double typeVolume = state.getTypeVolume(types[0]);
+            target = Math.min(state.getRemainingQuantity(types[0]),
+                    Math.floor(state.getTotalContainerVolume() / typeVolume)) * typeVolume;
+        }
+
+        List<FloorPattern> floors = new ArrayList<>();
+        for (int containerOrientation = 1; containerOrientation <= maxContainerOrientation; containerOrientation++) {
+            if (state.isStopped()) {
+                state.setPartial(true);
+                return false;
+            }
+            Volume orientation = state.getContainer().atOrientation(containerOrientation);
+            // the cells depend on which edge is the height, so another orientation may still be within the budget
+            if (count * (orientation.getDimension2() + 1) + orientation.getDimension1() +
+                orientation.getDimension3() + 2 <= MAX_CELLS) {
+                Plan plan = plan(state, types, count, containerOrientation, orientation, floors, target);
+                if (plan != null && plan.volume == target) {
+                    apply(state, plan);
+                    return true;
+                }
+            }
+            if (state.getContainer().isCubic()) {
+                containerOrientation = 6;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packs the units of a plan, making it the best packing of the state.
+     */
+    private static void apply(PalletPackingState state, Plan plan) {
+        state.restartPacking();
+        for (Layer layer : plan.layers) {
+            Placements placements = layer.pattern.floor.placements(layer.units);
+            for (int i = 0; i < layer.units; i++) {
+                state.packUnit(layer.type, placements.positionX[i], layer.positionY, placements.positionZ[i],
+                        placements.orientationX[i], layer.pattern.thickness, placements.orientationZ[i]);
+            }
+        }
+        state.setPackedVolume(plan.volume);
+        state.validateBestState(plan.containerOrientation, 0);
+        state.setHundredPercentPacked(plan.volume == state.getTotalItemVolume());
+    }
+
+    /**
+     * Finds the best layered packing for a container orientation.
+     * Each layer starts holding as many units as its floor area allows, an upper bound of its best floor pattern; the
+     * patterns of the layers the best stacking uses are then searched, and the layers stacked again, until the
+     * stacking only uses searched patterns, or can no longer reach the target volume.
+     * @return the packing; null if it can't reach the target volume.
+     */
+    private static Plan plan(PalletPackingState state, int[] types, int count, int containerOrientation,
+                             Volume orientation, List<FloorPattern> floors, double target) {
+        int height = (int) orientation.getDimension2();
+        long[][] units = new long[count][height + 1];
+        int[][] choices = new int[count][height + 1];
+        List<List<Pattern>> patterns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            patterns.add(patterns(state.getOrientations(), types[i], orientation));
+        }
+
+        int split;
+        boolean searched;
+        do {
+            for (int i = 0; i < count; i++) {
+                stack(patterns.get(i), units[i], choices[i]);
+            }
+            split = split(state, types, count, units);
+            if (volume(state, types, count, units, split) < target) {
+                return null;
+            }
+            searched = search(state, types[0], patterns.get(0), choices[0], split, orientation, floors);
+            if (count == 2) {
+                searched |= search(state, types[1], patterns.get(1), choices[1], height - split, orientation, floors);
+            }
+        } while (searched);
+
+        Plan plan = new Plan(containerOrientation);
+        long positionY = layers(plan, state, types[0], patterns.get(0), choices[0], split, 0);
+        if (count == 2) {
+            layers(plan, state, types[1], patterns.get(1), choices[1], height - split, positionY);
+        }
+        return plan;
+    }
+
+    /**
+     * Searches the floor patterns of the layers of a type, as chosen by {@link #stack}, that only have an upper bound.
+     * @return true if any pattern was searched.
+     */
+    private static boolean search(PalletPackingState state, int type, List<Pattern> patterns, int[] choices,
+                                  int height, Volume container, List<FloorPattern> floors) {
+        boolean searched = false;
+        int remaining = state.getRemainingQuantity(type);
+        int y = height;
+        while (y > 0 && remaining > 0) {
+            if (choices[y] < 0) {
+                y--;
+                continue;
+            }
+            Pattern pattern = patterns.get(choices[y]);
+            if (pattern.floor == null) {
+                pattern.search(container, floors);
+                searched = true;
+            }
+            remaining -= pattern.count;
+            y -= (int) pattern.thickness;
+        }
+        return searched;
+    }
+
+    /**
+     * Splits the height of the container between the types: the first one takes the bottom, the second one the rest.
+     * @param units the units the layers of each type hold for each height.
+     * @return the height of the first type.
+     */
+    private static int split(PalletPackingState state, int[] types, int count, long[][] units) {
+        int height = units[0].length - 1;
+        if (count == 1) {
+            return height;
+        }
+        int split = 0;
+        double bestVolume = -1;
+        for (int y = 0; y <= height; y++) {
+            double volume = volume(state, types, count, units, y);
+            if (volume > bestVolume) {
+                bestVolume = volume;
+                split = y;
+            }
+        }
+        return split;
+    }
+
+    private static double volume(PalletPackingState state, int[] types, int count, long[][] units, int split) {
+        double volume = packedVolume(state, types[0], units[0][split]);
+        if (count == 2) {
+            volume += packedVolume(state, types[1], units[1][units[1].length - 1 - split]);
+        }
+        return volume;
+    }
+
+    private static double packedVolume(PalletPackingState state, int type, long units) {
+        return Math.min(units, state.getRemainingQuantity(type)) * state.getTypeVolume(type);
+    }
+
+    /**
+     * Adds to a plan the layers of a type that fill the given height, as chosen by {@link #stack}, up to the units of
+     * the type.
+     * @return the height the layers take.
+     */
+    private static long layers(Plan plan, PalletPackingState state, int type, List<Pattern> patterns, int[] choices,
+                               int height, long positionY) {
+        int remaining = state.getRemainingQuantity(type);
+        int y = height;
+        while (y > 0 && remaining > 0) {
+            if (choices[y] < 0) {
+                y--;
+                continue;
+            }
+            Pattern pattern = patterns.get(choices[y]);
+            int layerUnits = (int) Math.min(remaining, pattern.count);
+            plan.layers.add(new Layer(type, pattern, positionY, layerUnits));
+            plan.volume += layerUnits * state.getTypeVolume(type);
+            remaining -= layerUnits;
+            positionY += pattern.thickness;
+            y -= (int) pattern.thickness;
+        }
+        return positionY;
+    }
+
+    /**
+     * Chooses, for every height, the layers that hold the most units of a type.
+     * @param patterns the floor pattern of each layer thickness.
+     * @param units receives the units the best layers hold for each height.
+     * @param choices receives the pattern of the top layer for each height; -1 if the height is left empty.
+     */
+    private static void stack(List<Pattern> patterns, long[] units, int[] choices) {
+        choices[0] = -1;
+        for (int y = 1; y < units.length; y++) {
+            units[y] = units[y - 1];
+            choices[y] = -1;
+            for (int i = 0; i < patterns.size(); i++) {
+                Pattern pattern = patterns.get(i);
+                if (pattern.thickness <= y && units[y - (int) pattern.thickness] + pattern.count > units[y]) {
+                    units[y] = units[y - (int) pattern.thickness] + pattern.count;
+                    choices[y] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the layers of a type, one for each distinct height of its orientations that fit in the container, each
+     * holding as many units as the floor area allows.
+     */
+    private static List<Pattern> patterns(OrientationTable orientations, int type, Volume container) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (int i = orientations.getStart(type); i < orientations.getEnd(type); i++) {
+            long thickness = orientations.getY(i);
+            if (thickness > container.getDimension2()) {
+                continue;
+            }
+            boolean seen = false;
+            for (Pattern pattern : patterns) {
+                if (pattern.thickness == thickness) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (seen) {
+                continue;
+            }
+            long length = orientations.getX(i);
+            long width = orientations.getZ(i);
+            boolean rotated = false;
+            for (int j = i + 1; j < orientations.getEnd(type); j++) {
+                if (orientations.getY(j) == thickness && orientations.getX(j) == width &&
+                    orientations.getZ(j) == length) {
+                    rotated = true;
+                    break;
+                }
+            }
+            if (fits(container, length, width) || (rotated && fits(container, width, length))) {
+                patterns.add(new Pattern(thickness, length, width, rotated,
+                        (container.getDimension1() * container.getDimension3()) / (length * width)));
+            }
+        }
+        return patterns;
+    }
+
+    private static boolean fits(Volume container, long length, long width) {
+        return length <= container.getDimension1() && width <= container.getDimension3();
+    }
+
+    private static FloorPattern floorPattern(List<FloorPattern> floors, long containerX, long containerZ, long length,
+                                             long width, boolean rotated) {
+        for (FloorPattern floor : floors) {
+            if (floor.containerX == containerX && floor.containerZ == containerZ && floor.length == length &&
+                floor.width == width && floor.rotated == rotated) {
+                return floor;
+            }
+        }
+        FloorPattern floor = new FloorPattern(containerX, containerZ, length, width, rotated);
+        floors.add(floor);
+        return floor;
+    }
+
+    /**
+     * The best guillotine pattern of a rectangle on the floor of the container.
+     * A single grid is used when it already covers as many rectangles as the floor area holds; otherwise the pattern
+     * is found by dynamic programming over the raster points, the lengths that add up from the sides of the
+     * rectangle. The positions are only listed for the patterns a packing uses.
+     */
+    private static final class FloorPattern {
+
+        private static final int GRID = 0, ROTATED_GRID = 1;
+
+        private final long containerX, containerZ;
+        private final long length, width;
+        private final boolean rotated;
+        private final long count;
+
+        private long[] rasterX, rasterZ;
+        private int[] floorX, floorZ;
+
+        /**
+         * The units of the best pattern of each raster rectangle, and how it's made: {@link #GRID}, {@link
+         * #ROTATED_GRID}, 2 + k for a cut at rasterX[k], or 2 + rasterX.length + k for a cut at rasterZ[k].
+         * Null when a single grid is enough, or when there are too many raster rectangles; only two-block patterns,
+         * a grid on each side of a single cut, are tried then.
+         */
+        private int[][] units, choices;
+        private long cutX, cutZ;
+
+        private Placements placements;
+
+        FloorPattern(long containerX, long containerZ, long length, long width, boolean rotated) {
+            this.containerX = containerX;
+            this.containerZ = containerZ;
+            this.length = length;
+            this.width = width;
+            this.rotated = rotated;
+
+            long grid = Math.max(grid(containerX, containerZ), rotatedGrid(containerX, containerZ));
+            if (grid == (containerX * containerZ) / (length * width)) {
+                this.count = grid;
+                return;
+            }
+
+            this.floorX = new int[(int) containerX + 1];
+            this.floorZ = new int[(int) containerZ + 1];
+            this.rasterX = raster(length, rotated ? width : length, floorX);
+            this.rasterZ = raster(width, rotated ? length : width, floorZ);
+            if ((long) rasterX.length * rasterZ.length <= MAX_RASTER_CELLS) {
+                this.units = new int[rasterX.length][rasterZ.length];
+                this.choices = new int[rasterX.length][rasterZ.length];
+                solve();
+                this.count = units[rasterX.length - 1][rasterZ.length - 1];
+            } else {
+                this.count = twoBlocks(grid);
+            }
+        }
+
+        /**
+         * Lists the lengths up to the container edge that add up from the given sides, from the shortest.
+         * @param floor receives, for each length, the index of the longest raster point not above it.
+         */
+        private static long[] raster(long side1, long side2, int[] floor) {
+            boolean[] reached = new boolean[floor.length];
+            reached[0] = true;
+            int count = 1;
+            for (int i = 1; i < floor.length; i++) {
+                reached[i] = (i >= side1 && reached[(int) (i - side1)]) || (i >= side2 && reached[(int) (i - side2)]);
+                if (reached[i]) {
+                    count++;
+                }
+            }
+            long[] raster = new long[count];
+            int index = -1;
+            for (int i = 0; i < floor.length; i++) {
+                if (reached[i]) {
+                    raster[++index] = i;
+                }
+                floor[i] = index;
+            }
+            return raster;
+        }
+
+        private long grid(long x, long z) {
+            return (x / length) * (z / width);
+        }
+
+        private long rotatedGrid(long x, long z) {
+            return rotated ? (x / width) * (z / length) : 0;
+        }
+
+        private void solve() {
+            int cutsX = rasterX.length;
+            for (int i = 0; i < rasterX.length; i++) {
+                for (int j = 0; j < rasterZ.length; j++) {
+                    long x = rasterX[i], z = rasterZ[j];
+                    int best = (int) grid(x, z);
+                    int choice = GRID;
+                    if (rotatedGrid(x, z) > best) {
+                        best = (int) rotatedGrid(x, z);
+                        choice = ROTATED_GRID;
+                    }
+                    // a cut and its mirror give the same pattern, so only cuts up to the middle are tried
+                    for (int k = 1; k < i && 2 * rasterX[k] <= x; k++) {
+                        int cut = units[k][j] + units[floorX[(int) (x - rasterX[k])]][j];
+                        if (cut > best) {
+                            best = cut;
+                            choice = 2 + k;
+                        }
+                    }
+                    for (int k = 1; k < j && 2 * rasterZ[k] <= z; k++) {
+                        int cut = units[i][k] + units[i][floorZ[(int) (z - rasterZ[k])]];
+                        if (cut > best) {
+                            best = cut;
+                            choice = 2 + cutsX + k;
+                        }
+                    }
+                    units[i][j] = best;
+                    choices[i][j] = choice;
+                }
+            }
+        }
+
+        /**
+         * Finds the best pattern made of a grid of the rectangle on one side of a cut, and a grid of the rotated
+         * rectangle on the other side.
+         * @param grid the units of the best single grid.
+         * @return the units of the best pattern.
+         */
+        private long twoBlocks(long grid) {
+            long best = grid;
+            for (long x : rasterX) {
+                long cut = grid(x, containerZ) + rotatedGrid(containerX - x, containerZ);
+                if (cut > best) {
+                    best = cut;
+                    cutX = x;
+                    cutZ = 0;
+                }
+            }
+            for (long z : rasterZ) {
+                long cut = grid(containerX, z) + rotatedGrid(containerX, containerZ - z);
+                if (cut > best) {
+                    best = cut;
+                    cutX = 0;
+                    cutZ = z;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Lists the first units of the pattern; the listing is kept, and only redone when more units are asked for.
+         * @param first the number of units to list, not above the units of the pattern.
+         * @return the positions and orientations of the units.
+         */
+        Placements placements(int first) {
+            if (placements == null || placements.positionX.length < first) {
+                placements = new Placements(first);
+                if (units != null) {
+                    place(0, 0, rasterX.length - 1, rasterZ.length - 1);
+                } else if (cutX > 0) {
+                    placeGrid(0, 0, cutX, containerZ, length, width);
+                    placeGrid(cutX, 0, containerX - cutX, containerZ, width, length);
+                } else if (cutZ > 0) {
+                    placeGrid(0, 0, containerX, cutZ, length, width);
+                    placeGrid(0, cutZ, containerX, containerZ - cutZ, width, length);
+                } else if (rotatedGrid(containerX, containerZ) > grid(containerX, containerZ)) {
+                    placeGrid(0, 0, containerX, containerZ, width, length);
+                } else {
+                    placeGrid(0, 0, containerX, containerZ, length, width);
+                }
+            }
+            return placements;
+        }
+
+        private void place(long originX, long originZ, int i, int j) {
+            if (placements.isFull()) {
+                return;
+            }
+            int choice = choices[i][j];
+            if (choice == GRID) {
+                placeGrid(originX, originZ, rasterX[i], rasterZ[j], length, width);
+            } else if (choice == ROTATED_GRID) {
+                placeGrid(originX, originZ, rasterX[i], rasterZ[j], width, length);
+            } else if (choice < 2 + rasterX.length) {
+                int k = choice - 2;
+                place(originX, originZ, k, j);
+                place(originX + rasterX[k], originZ, floorX[(int) (rasterX[i] - rasterX[k])], j);
+            } else {
+                int k = choice - 2 - rasterX.length;
+                place(originX, originZ, i, k);
+                place(originX, originZ + rasterZ[k], i, floorZ[(int) (rasterZ[j] - rasterZ[k])]);
+            }
+        }
+
+        private void placeGrid(long originX, long originZ, long x, long z, long length, long width) {
+            for (long positionZ = originZ; positionZ + width <= originZ + z; positionZ += width) {
+                for (long positionX = originX; positionX + length <= originX + x; positionX += length) {
+                    if (placements.isFull()) {
+                        return;
+                    }
+                    placements.add(positionX, positionZ, length, width);
+                }
+            }
+        }
+    }
+
+    /**
+     * The positions and horizontal orientations of the first units of a floor pattern.
+     */
+    private static final class Placements {
+
+        private final long[] positionX, positionZ;
+        private final long[] orientationX, orientationZ;
+        private int count;
+
+        Placements(int units) {
+            this.positionX = new long[units];
+            this.positionZ = new long[units];
+            this.orientationX = new long[units];
+            this.orientationZ = new long[units];
+        }
+
+        boolean isFull() {
+            return count == positionX.length;
+        }
+
+        void add(long x, long z, long length, long width) {
+            positionX[count] = x;
+            positionZ[count] = z;
+            orientationX[count] = length;
+            orientationZ[count] = width;
+            count++;
+        }
+    }
+
+    /**
+     * The layers of a type with a given thickness, with the units of their floor pattern; until the pattern is
+     * searched, the units are an upper bound.
+     */
+    private static final class Pattern {
+
+        private final long thickness;
+        private final long length, width;
+        private final boolean rotated;
+        private long count;
+        private FloorPattern floor;
+
+        Pattern(long thickness, long length, long width, boolean rotated, long count) {
+            this.thickness = thickness;
+            this.length = length;
+            this.width = width;
+            this.rotated = rotated;
+            this.count = count;
+        }
+
+        void search(Volume container, List<FloorPattern> floors) {
+            floor = floorPattern(floors, container.getDimension1(), container.getDimension3(), length, width, rotated);
+            count = floor.count;
+        }
+    }
+
+    /**
+     * A layer of a plan: the first units of a floor pattern, at a height.
+     */
+    private static final class Layer {
+
+        private final int type;
+        private final Pattern pattern;
+        private final long positionY;
+        private final int units;
+
+        Layer(int type, Pattern pattern, long positionY, int units) {
+            this.type = type;
+            this.pattern = pattern;
+            this.positionY = positionY;
+            this.units = units;
+        }
+    }
+
+    /**
+     * The layers packed in a container orientation.
+     */
+    private static final class Plan {
+
+        private final int containerOrientation;
+        private final List<Layer> layers = new ArrayList<>();
+        private double volume;
+
+        Plan(int containerOrientation) {
+            this.containerOrientation = containerOrientation;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+/**
+ * Lets a caller stop a running simulation.
+ * Once cancelled, a simulation stops at its next check, between candidate runs or between the boxes of a layer, and
+ * returns the best packing found so far, flagged as partial.
+ * A token can be shared by many simulations, and cancelled from any thread; it can't be reset.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Asks every simulation using this token to stop.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
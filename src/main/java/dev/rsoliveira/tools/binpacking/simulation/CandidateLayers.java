@@ -0,0 +1,260 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.Layer;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The candidate layer thicknesses of a simulation, with their weights, listed once per container orientation.
+ * <p>
+ * The weight of a thickness is the sum, over the input items, of the smallest difference between the thickness and
+ * any of the item's dimensions. For a single item, with dimensions a &lt;= b &lt;= c, that difference is a piecewise
+ * linear function of the thickness, whose slope changes at a, (a + b) / 2, b, (b + c) / 2 and c; the breakpoints of
+ * all items are kept sorted, with prefix sums, so a weight is computed with two binary searches.
+ * Breakpoints are kept doubled, so they are all integers.
+ */
+class CandidateLayers {
+
+    /**
+     * The types whose thicknesses are listed, each with the input items it holds.
+     */
+    private final List<Item> types;
+    private final int itemCount;
+
+    /**
+     * Breakpoints where the slope grows by 2 (2a, 2b, 2c), and where it drops by 2 (a + b, b + c).
+     */
+    private final long[] rising, falling;
+    private final long[] risingSum, fallingSum;
+    private final long lowestSum;
+
+    /**
+     * For each type, the input items sharing the id of its first input item, whose differences are left out of its
+     * weights; null when there are none.
+     */
+    private final Item[][] sameId;
+
+    private final List<Volume> orientations = new ArrayList<>();
+    private final List<List<Layer>> layers = new ArrayList<>();
+
+    /**
+     * Lists the thicknesses of the types of the input items; the weights are summed over the input items, so a type
+     * folding several of them weighs as much as all of them.
+     */
+    CandidateLayers(TypeClasses classes) {
+        List<Item> items = classes.getItems();
+        int count = items.size();
+        this.itemCount = count;
+        this.rising = new long[count * 3];
+        this.falling = new long[count * 2];
+
+        long lowestSum = 0;
+        Map<Integer, List<Integer>> byId = new HashMap<>();
+        int[] firstItem = new int[classes.getTypes().size()];
+        Arrays.fill(firstItem, -1);
+        for (int i = 0; i < count; i++) {
+            Item item = items.get(i);
+            long[] sorted = {item.getDimension1(), item.getDimension2(), item.getDimension3()};
+            Arrays.sort(sorted);
+            rising[i * 3] = 2 * sorted[0];
+            rising[i * 3 + 1] = 2 * sorted[1];
+            rising[i * 3 + 2] = 2 * sorted[2];
+            falling[i * 2] = sorted[0] + sorted[1];
+            falling[i * 2 + 1] = sorted[1] + sorted[2];
+            lowestSum += 2 * sorted[0];
+            byId.computeIfAbsent(item.getId(), id -> new ArrayList<>()).add(i);
+            if (firstItem[classes.getType(i)] < 0) {
+                firstItem[classes.getType(i)] = i;
+            }
+        }
+        this.lowestSum = lowestSum;
+
+        Arrays.sort(rising);
+        Arrays.sort(falling);
+        this.risingSum = prefixSums(rising);
+        this.fallingSum = prefixSums(falling);
+
+        // types with no input item left have no thickness to list
+        this.types = new ArrayList<>();
+        List<Item[]> sameId = new ArrayList<>();
+        for (int type = 0; type < firstItem.length; type++) {
+            int first = firstItem[type];
+            if (first < 0) {
+                continue;
+            }
+            types.add(classes.getTypes().get(type));
+            List<Integer> group = byId.get(items.get(first).getId());
+            sameId.add(group.size() > 1 ?
+                    group.stream().filter(j -> j != first).map(items::get).toArray(Item[]::new) : null);
+        }
+        this.sameId = sameId.toArray(new Item[0][]);
+    }
+
+    /**
+     * Lists all possible layer thicknesses for a container orientation, sorted by weight, after a sentinel layer
+     * at index 0; thicknesses repeat in no more than one layer, the first item that has it giving its weight.
+     * The list is computed once per orientation dimensions, and must not be modified.
+     * @param orientation the container orientation.
+     * @return the candidate layers.
+     */
+    List<Layer> list(Volume orientation) {
+        for (int i = 0; i < orientations.size(); i++) {
+            Volume other = orientations.get(i);
+            if (other.getDimension1() == orientation.getDimension1() &&
+                other.getDimension2() == orientation.getDimension2() &&
+                other.getDimension3() == orientation.getDimension3()) {
+                return layers.get(i);
+            }
+        }
+        List<Layer> list = Collections.unmodifiableList(compute(orientation));
+        orientations.add(orientation);
+        layers.add(list);
+        return list;
+    }
+
+    private List<Layer> compute(Volume orientation) {
+        long examinedDimension, dimension2, dimension3;
+
+        List<Layer> list = new ArrayList<>();
+        list.add(new Layer(-1, 0));
+        LongSet examined = new LongSet(types.size() * 3 + 1);
+        examined.add(0);
+
+        for (int i = 0; i < types.size(); i++) {
+            Item item = types.get(i);
+            int max;
+            switch (item.getRotation()) {
+                case FULL: max = 3; break;
+                case HORIZONTAL: max = 2; break;
+                case NONE:
+                default: max = 1; break;
+            }
+            for (int y = 1; y <= max; y++) {
+                switch (y) {
+                    case 2:
+                        // face down = yz
+                        examinedDimension = item.getDimension2();
+                        dimension2 = item.getDimension1();
+                        dimension3 = item.getDimension3();
+                        break;
+                    case 3:
+                        // face down = zy
+                        examinedDimension = item.getDimension3();
+                        dimension2 = item.getDimension1();
+                        dimension3 = item.getDimension2();
+                        break;
+                    default:
+                        // face down = xz
+                        examinedDimension = item.getDimension1();
+                        dimension2 = item.getDimension2();
+                        dimension3 = item.getDimension3();
+                        break;
+                }
+                if ((examinedDimension > orientation.getDimension2()) ||
+                    (((dimension2 > orientation.getDimension1()) || (dimension3 > orientation.getDimension3())) &&
+                     ((dimension3 > orientation.getDimension1()) || (dimension2 > orientation.getDimension3())))) {
+                    continue;
+                }
+                if (!examined.add(examinedDimension)) {
+                    continue;
+                }
+
+                // the item's own difference is 0, as the examined dimension is one of its own
+                long weight = getWeight(examinedDimension);
+                if (sameId[i] != null) {
+                    for (Item other : sameId[i]) {
+                        weight -= getDimensionDiff(examinedDimension, other);
+                    }
+                }
+                list.add(new Layer(weight, examinedDimension));
+            }
+        }
+
+        list.sort(Comparator.comparing(Layer::getWeight));
+        return list;
+    }
+
+    /**
+     * @return the sum of the differences between the dimension and all the input items.
+     */
+    private long getWeight(long dimension) {
+        long doubled = 2 * dimension;
+        int risingBelow = countBelow(rising, doubled);
+        int fallingBelow = countBelow(falling, doubled);
+        long sum = lowestSum - (long) itemCount * doubled
+                + 2 * (doubled * risingBelow - risingSum[risingBelow])
+                - 2 * (doubled * fallingBelow - fallingSum[fallingBelow]);
+        return sum / 2;
+    }
+
+    private static long getDimensionDiff(long examinedDimension, Item item) {
+        long dimdif = Math.abs(examinedDimension - item.getDimension1());
+        dimdif = Math.min(dimdif, Math.abs(examinedDimension - item.getDimension2()));
+        return Math.min(dimdif, Math.abs(examinedDimension - item.getDimension3()));
+    }
+
+    /**
+     * @return the number of sorted values lower than the given one.
+     */
+    private static int countBelow(long[] sorted, long value) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long[] prefixSums(long[] values) {
+        long[] sums = new long[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            sums[i + 1] = sums[i] + values[i];
+        }
+        return sums;
+    }
+
+    /**
+     * An open addressing hash set of non-negative longs.
+     */
+    private static final class LongSet {
+
+        private static final long EMPTY = -1;
+
+        private final long[] slots;
+        private final int mask;
+
+        LongSet(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 2) * 2 - 1) << 1;
+            this.slots = new long[capacity];
+            this.mask = capacity - 1;
+            Arrays.fill(slots, EMPTY);
+        }
+
+        /**
+         * @return true if the value was not in the set yet.
+         */
+        boolean add(long value) {
+            int slot = (int) (value ^ (value >>> 32)) * 0x9E3779B9 & mask;
+            while (slots[slot] != EMPTY) {
+                if (slots[slot] == value) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+
+/**
+ * A single search candidate: a container orientation and the thickness of the first layer packed into it.
+ * The ordinal is the position of the candidate in the sequential search order.
+ */
+class CandidateRun {
+
+    private final int ordinal;
+    private final int containerOrientation;
+    private final int layerIndex;
+    private final Volume orientation;
+    private final long layerThickness;
+
+    CandidateRun(int ordinal, int containerOrientation, int layerIndex, Volume orientation, long layerThickness) {
+        this.ordinal = ordinal;
+        this.containerOrientation = containerOrientation;
+        this.layerIndex = layerIndex;
+        this.orientation = orientation;
+        this.layerThickness = layerThickness;
+    }
+
+    int getOrdinal() {
+        return ordinal;
+    }
+
+    int getContainerOrientation() {
+        return containerOrientation;
+    }
+
+    int getLayerIndex() {
+        return layerIndex;
+    }
+
+    Volume getOrientation() {
+        return orientation;
+    }
+
+    long getLayerThickness() {
+        return layerThickness;
+    }
+}
@@ -0,0 +1,61 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The packing of a candidate run, starting from a (container orientation, layer thickness) pair.
+ */
+@Name("dev.rsoliveira.binpacking.CandidateRun")
+@Label("Candidate Run")
+@Category("Bin Packing")
+@Description("Packing starting from a container orientation and a candidate layer")
+final class CandidateRunEvent extends Event {
+
+    @Label("Container Orientation")
+    int containerOrientation;
+
+    @Label("Layer Thickness")
+    @Description("Thickness of the first layer")
+    long layerThickness;
+
+    @Label("Units")
+    int units;
+
+    @Label("Packed Units")
+    int packedUnits;
+
+    @Label("Packed Volume")
+    double packedVolume;
+
+    @Label("Superseded")
+    @Description("Stopped because an earlier run of a parallel search packed 100%")
+    boolean superseded;
+
+    @Label("Pruned")
+    @Description("Stopped because it could no longer beat the best packing found")
+    boolean pruned;
+
+    static CandidateRunEvent start() {
+        CandidateRunEvent event = new CandidateRunEvent();
+        event.begin();
+        return event;
+    }
+
+    void end(PalletPackingState state, int containerOrientation, long layerThickness) {
+        end();
+        if (shouldCommit()) {
+            this.containerOrientation = containerOrientation;
+            this.layerThickness = layerThickness;
+            units = state.getUnitCount();
+            packedUnits = state.getPackedUnits();
+            packedVolume = state.getPackedVolume();
+            superseded = state.isSuperseded();
+            pruned = state.isPruned();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+
+import java.util.List;
+
+/**
+ * A packing engine that can pack a list of items into as many containers as needed in a single session, keeping its
+ * search data from one container to the next.
+ * @param <C> the container type.
+ * @param <P> the item type.
+ */
+public interface IFleetSimulation<C extends Volume, P extends Item> extends ISimulation<C, P> {
+
+  /**
+   * Simulates packing a list of items into copies of a container, one after the other, until all items are packed.
+   * Each container receives the best packing of the items the previous ones left out, the same one
+   * {@link #simulate(Volume, List)} would find for them.
+   * @param container the container used as template for packing.
+   * @param volumes the list of all items that will be packed.
+   * @return one solution per container used.
+   */
+  List<Solution> simulateFleet(C container, List<P> volumes);
+
+}
@@ -4,10 +4,40 @@ import dev.rsoliveira.tools.binpacking.domain.Item;
 import dev.rsoliveira.tools.binpacking.domain.Solution;
 import dev.rsoliveira.tools.binpacking.domain.Volume;
 
+import java.time.Duration;
 import java.util.List;
 
+/**
+ * A packing engine.
+ * Implementations must be reentrant: all mutable search data belongs to a single call of
+ * {@link #simulate(Volume, List)}, so one instance can be shared by concurrent callers without locking.
+ * The given container and items are only read, never modified.
+ *
+ * @param <C> the container type.
+ * @param <P> the item type.
+ */
 public interface ISimulation<C extends Volume, P extends Item> {
 
+  /**
+   * Simulates packing a list of items into a container.
+   * @param container a container that will receive all the possible items.
+   * @param volumes a list of items to pack into to the container.
+   * @return the best packing found.
+   */
   Solution simulate(C container, List<P> volumes);
 
+  /**
+   * Simulates packing a list of items into a container, stopping early when the time budget runs out or the token
+   * is cancelled; the best packing found so far is then returned, flagged as {@link Solution#isPartial() partial}.
+   * Engines that can't stop early ignore both limits, and always return a complete search.
+   * @param container a container that will receive all the possible items.
+   * @param volumes a list of items to pack into to the container.
+   * @param timeBudget the longest time the search may take; null for no limit.
+   * @param token stops the search when cancelled; null if the search can't be cancelled.
+   * @return the best packing found.
+   */
+  default Solution simulate(C container, List<P> volumes, Duration timeBudget, CancellationToken token) {
+    return simulate(container, volumes);
+  }
+
 }
@@ -0,0 +1,49 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The building of a single layer of a candidate run.
+ */
+@Name("dev.rsoliveira.binpacking.Layer")
+@Label("Layer")
+@Category("Bin Packing")
+@Description("Building of a layer of packed items")
+final class LayerEvent extends Event {
+
+    @Label("Layer Thickness")
+    long layerThickness;
+
+    @Label("Layer In Layer")
+    @Description("Built inside the unused height of another layer")
+    boolean layerInLayer;
+
+    @Label("Packed Units")
+    @Description("Units packed by the run once the layer is built")
+    int packedUnits;
+
+    @Label("Packed Volume")
+    @Description("Volume packed by the run once the layer is built")
+    double packedVolume;
+
+    static LayerEvent start() {
+        LayerEvent event = new LayerEvent();
+        event.begin();
+        return event;
+    }
+
+    void end(PalletPackingState state, long layerThickness, boolean layerInLayer) {
+        end();
+        if (shouldCommit()) {
+            this.layerThickness = layerThickness;
+            this.layerInLayer = layerInLayer;
+            packedUnits = state.getPackedUnits();
+            packedVolume = state.getPackedVolume();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+
+import java.util.List;
+
+/**
+ * The distinct orientations each item type may be packed in, as (x, y, z) triples, computed once per simulation.
+ * Orientations follow the order of {@link Volume#atOrientation(int)}; an orientation that repeats the dimensions
+ * of an earlier one, as happens with equal item dimensions, is kept only once.
+ * The table is immutable, so it can be shared by the states of a parallel search.
+ */
+class OrientationTable {
+
+    private final int[] start;
+    private final long[] x, y, z;
+
+    OrientationTable(List<Item> items) {
+        int types = items.size();
+        this.start = new int[types + 1];
+        long[] x = new long[types * 6];
+        long[] y = new long[types * 6];
+        long[] z = new long[types * 6];
+
+        int count = 0;
+        for (int type = 0; type < types; type++) {
+            Item item = items.get(type);
+            start[type] = count;
+
+            int max;
+            if (item.isCubic()) {
+                max = 1;
+            } else {
+                switch (item.getRotation()) {
+                    case FULL: max = 6; break;
+                    case HORIZONTAL: max = 2; break;
+                    case NONE:
+                    default: max = 1; break;
+                }
+            }
+            for (int i = 1; i <= max; i++) {
+                long dimension1, dimension2, dimension3;
+                switch (i) {
+                    case 2: dimension1 = item.getDimension3(); dimension2 = item.getDimension2(); dimension3 = item.getDimension1(); break;
+                    case 3: dimension1 = item.getDimension3(); dimension2 = item.getDimension1(); dimension3 = item.getDimension2(); break;
+                    case 4: dimension1 = item.getDimension2(); dimension2 = item.getDimension1(); dimension3 = item.getDimension3(); break;
+                    case 5: dimension1 = item.getDimension1(); dimension2 = item.getDimension3(); dimension3 = item.getDimension2(); break;
+                    case 6: dimension1 = item.getDimension2(); dimension2 = item.getDimension3(); dimension3 = item.getDimension1(); break;
+                    default: dimension1 = item.getDimension1(); dimension2 = item.getDimension2(); dimension3 = item.getDimension3(); break;
+                }
+                boolean repeated = false;
+                for (int j = start[type]; j < count; j++) {
+                    if (x[j] == dimension1 && y[j] == dimension2 && z[j] == dimension3) {
+                        repeated = true;
+                        break;
+                    }
+                }
+                if (!repeated) {
+                    x[count] = dimension1;
+                    y[count] = dimension2;
+                    z[count] = dimension3;
+                    count++;
+                }
+            }
+        }
+        start[types] = count;
+
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * @return the index of the first orientation of the given type.
+     */
+    int getStart(int type) {
+        return start[type];
+    }
+
+    /**
+     * @return the index after the last orientation of the given type.
+     */
+    int getEnd(int type) {
+        return start[type + 1];
+    }
+
+    long getX(int orientation) {
+        return x[orientation];
+    }
+
+    long getY(int orientation) {
+        return y[orientation];
+    }
+
+    long getZ(int orientation) {
+        return z[orientation];
+    }
+
+    /**
+     * Computes, for each type, which of its orientations fit inside the container at all.
+     * @param container the container orientation.
+     * @param masks receives one bit per orientation of each type, set when the orientation fits.
+     */
+    void fitMasks(Volume container, int[] masks) {
+        for (int type = 0; type < masks.length; type++) {
+            int mask = 0;
+            for (int i = start[type], bit = 1; i < start[type + 1]; i++, bit <<= 1) {
+                if (x[i] <= container.getDimension1() && y[i] <= container.getDimension2() &&
+                    z[i] <= container.getDimension3()) {
+                    mask |= bit;
+                }
+            }
+            masks[type] = mask;
+        }
+    }
+
+    /**
+     * Computes, for each type, the lowest height it can be packed with.
+     * @param masks the orientations of each type that fit inside the container, from {@link #fitMasks(Volume, int[])}.
+     * @param heights receives the lowest y of the fitting orientations of each type; Long.MAX_VALUE if none fits.
+     */
+    void lowestHeights(int[] masks, long[] heights) {
+        for (int type = 0; type < masks.length; type++) {
+            long lowest = Long.MAX_VALUE;
+            for (int i = start[type], bit = 1; i < start[type + 1]; i++, bit <<= 1) {
+                if ((masks[type] & bit) != 0 && y[i] < lowest) {
+                    lowest = y[i];
+                }
+            }
+            heights[type] = lowest;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+/**
+ * Tells whether the engine emits Java Flight Recorder events.
+ * The events need the jdk.jfr API, present from Java 8u262 and 11 on; on older JVMs, or when the
+ * binpacking.jfr system property is false, the event classes are never loaded.
+ * When a recording doesn't enable the events, emitting them costs a short-lived object and a flag check.
+ */
+final class PackingEvents {
+
+    static final boolean ENABLED = isAvailable();
+
+    private PackingEvents() {
+    }
+
+    private static boolean isAvailable() {
+        if (!Boolean.parseBoolean(System.getProperty("binpacking.jfr", "true"))) {
+            return false;
+        }
+        try {
+            Class.forName("jdk.jfr.Event", false, PackingEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -2,10 +2,12 @@ package dev.rsoliveira.tools.binpacking.simulation;
 
 import dev.rsoliveira.tools.binpacking.domain.*;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A 3D bin packing simulation that uses a human heuristic to perform the packing.
@@ -13,8 +15,48 @@ import java.util.List;
  * of items with compatible heights.
  * Both container and items can be rotated in horizontal axes only or in all directions, for better
  * space usage.
+ * When created with a {@link ForkJoinPool}, each pair of container orientation and candidate layer is packed as an
+ * independent task on the pool, and the best packing is the same one the sequential search finds.
+ * The simulation is reentrant: every call to {@link #simulate(Container, List)} keeps its search data in its own
+ * {@link PalletPackingState}, so one instance can be shared by concurrent callers.
+ * A {@link SimulationListener} given at creation receives the search counters and timings of every call.
  */
-public class PalletPackingSimulation implements ISimulation<Container, Item> {
+public class PalletPackingSimulation implements IFleetSimulation<Container, Item> {
+
+    /**
+     * The pool running the candidate searches; null when the search runs on the caller's thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Receives the search counters and timings; null when nobody is listening.
+     */
+    private final SimulationListener listener;
+
+    /**
+     * Creates a simulation that searches all candidates on the caller's thread.
+     */
+    public PalletPackingSimulation() {
+        this(null);
+    }
+
+    /**
+     * Creates a simulation that searches the container orientations and candidate layers in parallel.
+     * @param pool the pool used to run the candidate searches; if null, the search runs on the caller's thread.
+     */
+    public PalletPackingSimulation(ForkJoinPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Creates a simulation that reports its search counters and timings to a listener.
+     * @param pool the pool used to run the candidate searches; if null, the search runs on the caller's thread.
+     * @param listener receives the metrics of each candidate run and simulation; if null, no metrics are reported.
+     */
+    public PalletPackingSimulation(ForkJoinPool pool, SimulationListener listener) {
+        this.pool = pool;
+        this.listener = listener;
+    }
 
     /**
      * Simulates packing a list of items into a container.
@@ -24,47 +66,187 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
      * a list of unpacked items.
      */
     public Solution simulate(Container container, List<Item> volumes) {
+        return simulate(container, volumes, null, null);
+    }
+
+    /**
+     * Simulates packing a list of items into a container, within a time budget.
+     * @param container a container that will receive all the possible items.
+     * @param volumes a list of items to pack into to the container.
+     * @param timeBudget the longest time the search may take; once it runs out, the best packing found so far is
+     *                   returned, flagged as partial.
+     * @return the best packing found.
+     */
+    public Solution simulate(Container container, List<Item> volumes, Duration timeBudget) {
+        return simulate(container, volumes, timeBudget, null);
+    }
+
+    /**
+     * Simulates packing a list of items into a container, until the search ends or the token is cancelled.
+     * @param container a container that will receive all the possible items.
+     * @param volumes a list of items to pack into to the container.
+     * @param token stops the search when cancelled; the best packing found so far is then returned, flagged as
+     *              partial.
+     * @return the best packing found.
+     */
+    public Solution simulate(Container container, List<Item> volumes, CancellationToken token) {
+        return simulate(container, volumes, null, token);
+    }
+
+    /**
+     * Simulates packing a list of items into a container, stopping early when the time budget runs out or the token
+     * is cancelled. Both limits are checked between candidate runs and between the boxes of a layer; the best
+     * packing found so far, including the one of an interrupted run, is then returned, flagged as partial.
+     * @param container a container that will receive all the possible items.
+     * @param volumes a list of items to pack into to the container.
+     * @param timeBudget the longest time the search may take; null for no limit.
+     * @param token stops the search when cancelled; null if the search can't be cancelled.
+     * @return the best packing found.
+     */
+    @Override
+    public Solution simulate(Container container, List<Item> volumes, Duration timeBudget, CancellationToken token) {
         PalletPackingState state = new PalletPackingState(container, volumes);
-        iterate(state);
-        return report(state);
+        state.limitSearch(timeBudget, token);
+        return simulate(state);
+    }
+
+    /**
+     * Simulates packing a list of items into copies of a container, one after the other, until all items are packed,
+     * the items left fit in no orientation of the container, or a container would get none of them; those are then
+     * left in the remaining items of the last solution.
+     * All containers are packed in a single session: the item tables, candidate layers and search structures of the
+     * first container are kept for the next ones, which only carry forward how many units of each item are left.
+     * Each container gets the same packing that simulating it on its own, with the items left by the previous
+     * ones, would give.
+     * @param container the container used as template for packing.
+     * @param volumes the list of all items that will be packed.
+     * @return one solution per container used.
+     */
+    @Override
+    public List<Solution> simulateFleet(Container container, List<Item> volumes) {
+        List<Solution> solutions = new ArrayList<>();
+        PalletPackingState state = new PalletPackingState(container, volumes);
+        Solution solution = simulate(state);
+        solutions.add(solution);
+        while (!solution.isCompletePacking() && state.getBestPlacement() != null) {
+            state = state.next();
+            if (!hasFittingUnits(state)) {
+                // the units left fit in no orientation of the container
+                break;
+            }
+            Solution next = simulate(state);
+            if (next.getPackedUnitCount() == 0) {
+                // the search packs none of the units left, and would do the same in any further container
+                break;
+            }
+            solution = next;
+            solutions.add(solution);
+        }
+        return solutions;
+    }
+
+    /**
+     * @return true if any unit left to pack fits, in one of its orientations, in one of the container orientations.
+     */
+    private boolean hasFittingUnits(PalletPackingState state) {
+        OrientationTable orientations = state.getOrientations();
+        int maxContainerOrientation = getMaxContainerOrientation(state);
+        for (int containerOrientation = 1; containerOrientation <= maxContainerOrientation; containerOrientation++) {
+            Volume container = state.getContainer().atOrientation(containerOrientation);
+            for (int type = 0; type < state.getTypeCount(); type++) {
+                if (state.getRemainingQuantity(type) == 0) {
+                    continue;
+                }
+                for (int i = orientations.getStart(type); i < orientations.getEnd(type); i++) {
+                    if (orientations.getX(i) <= container.getDimension1() &&
+                        orientations.getY(i) <= container.getDimension2() &&
+                        orientations.getZ(i) <= container.getDimension3()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packs the items of a state into its container.
+     * @param state the packing state, holding the container and the items.
+     * @return the best packing found.
+     */
+    private Solution simulate(PalletPackingState state) {
+        long start = listener != null ? System.nanoTime() : 0;
+        SimulationMetrics metrics = listener != null ? new SimulationMetrics() : null;
+
+        SimulateEvent event = PackingEvents.ENABLED ? SimulateEvent.start() : null;
+
+        iterate(state, metrics);
+        Solution solution = report(state);
+
+        if (event != null) {
+            event.end(state, getBestLayerThickness(state));
+        }
+
+        if (listener != null) {
+            metrics.setSimulationNanos(System.nanoTime() - start);
+            listener.onSimulationFinished(state.getContainer(), state.getInputItems(), metrics);
+        }
+        return solution;
     }
 
     /**
      * Given a container, for each container orientation iterate all possible layers to fill it and find the best iteration.
      * The execution finishes when, on a given iteration, all items are packed.
+     * Orders of one or two item types are first packed in closed form by {@link BlockPacking}; the layers are only
+     * iterated when that packing may be beaten.
      *
      * @param state the packing state.
+     * @param metrics the metrics of the simulation; null when nobody is listening.
      */
-    private void iterate(PalletPackingState state) {
-
-        int maxContainerOrientation;
-        switch (state.getContainer().getRotation()) {
-            case FULL:
-                maxContainerOrientation = 6;
-                break;
-            case HORIZONTAL:
-                maxContainerOrientation = 2;
-                break;
-            case NONE:
-            default:
-                maxContainerOrientation = 1;
-                break;
+    private void iterate(PalletPackingState state, SimulationMetrics metrics) {
+        if (state.isStopped()) {
+            state.setPartial(true);
+            return;
+        }
+        if (BlockPacking.pack(state, getMaxContainerOrientation(state)) || state.isPartial()) {
+            return;
+        }
+        if (pool != null) {
+            iterateInParallel(state, metrics);
+            return;
         }
 
+        int maxContainerOrientation = getMaxContainerOrientation(state);
         int packedy;
         state.setBestVolume(0.0);
         for (int containerOrientation = 1; containerOrientation <= maxContainerOrientation; containerOrientation++) {
             Volume orientation = state.getContainer().atOrientation(containerOrientation);
 
-            List<Layer> layers = listCandidateLayers(state, orientation);
+            List<Layer> layers = state.getCandidateLayers().list(orientation);
 
+            state.useContainerOrientation(orientation);
+            if (metrics != null) {
+                metrics.setContainerOrientations(metrics.getContainerOrientations() + 1);
+            }
             for (int layersindex = 1; layersindex < layers.size(); layersindex++) {
+                if (state.isStopped()) {
+                    state.setPartial(true);
+                    break;
+                }
+                long start = metrics != null ? System.nanoTime() : 0;
+                CandidateRunEvent event = PackingEvents.ENABLED ? CandidateRunEvent.start() : null;
                 packedy = 0;
 
                 state.restartPacking();
                 state.resetThickness(layers.get(layersindex).getDimension(), orientation.getDimension2(), orientation.getDimension3());
 
                 iterationCore(state, packedy, orientation);
+                if (event != null) {
+                    event.end(state, containerOrientation, layers.get(layersindex).getDimension());
+                }
+                if (metrics != null) {
+                    finishRun(state, containerOrientation, layers.get(layersindex).getDimension(), start, metrics);
+                }
 
                 state.validateBestState(containerOrientation, layersindex);
 
@@ -72,7 +254,7 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
                     break;
                 }
             }
-            if (state.isHundredPercentPacked()) {
+            if (state.isHundredPercentPacked() || state.isPartial()) {
                 break;
             }
             if (state.getContainer().isCubic()) {
@@ -82,87 +264,121 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
     }
 
     /**
-     * Lists all possible layer heights, giving a weight value to each layer.
+     * Same as {@link #iterate(PalletPackingState, SimulationMetrics)}, but each (container orientation, candidate layer) pair is packed
+     * by its own task, with its own packing state. The tasks share the best packing found so far; once a task packs
+     * 100%, the tasks that come after it in the sequential order are cancelled, as the sequential search would never
+     * reach them.
+     *
+     * @param state the packing state.
+     * @param metrics the metrics of the simulation; null when nobody is listening.
      */
-    private List<Layer> listCandidateLayers(PalletPackingState state, Volume orientation) {
-        long examinedDimension, dimension2, dimension3;
-        double weight;
+    private void iterateInParallel(PalletPackingState state, SimulationMetrics metrics) {
+        int maxContainerOrientation = getMaxContainerOrientation(state);
 
-        List<Layer> layers = new ArrayList<>();
-        layers.add(new Layer(-1, 0));
+        List<CandidateRun> runs = new ArrayList<>();
+        for (int containerOrientation = 1; containerOrientation <= maxContainerOrientation; containerOrientation++) {
+            Volume orientation = state.getContainer().atOrientation(containerOrientation);
 
-        for (Item item : state.getInputItems()) {
-            int max;
-            switch (item.getRotation()) {
-                case FULL: max = 3; break;
-                case HORIZONTAL: max = 2; break;
-                case NONE:
-                default: max = 1; break;
+            List<Layer> layers = state.getCandidateLayers().list(orientation);
+            for (int layersindex = 1; layersindex < layers.size(); layersindex++) {
+                runs.add(new CandidateRun(runs.size(), containerOrientation, layersindex, orientation,
+                        layers.get(layersindex).getDimension()));
             }
-            for (int y = 1; y <= max; y++) {
-                switch (y) {
-                    case 2:
-                        // face down = yz
-                        examinedDimension = item.getDimension2();
-                        dimension2 = item.getDimension1();
-                        dimension3 = item.getDimension3();
-                        break;
-                    case 3:
-                        // face down = zy
-                        examinedDimension = item.getDimension3();
-                        dimension2 = item.getDimension1();
-                        dimension3 = item.getDimension2();
-                        break;
-                    default:
-                        // face down = xz
-                        examinedDimension = item.getDimension1();
-                        dimension2 = item.getDimension2();
-                        dimension3 = item.getDimension3();
-                        break;
-                }
-                if ((examinedDimension > orientation.getDimension2()) ||
-                    (((dimension2 > orientation.getDimension1()) || (dimension3 > orientation.getDimension3())) &&
-                     ((dimension3 > orientation.getDimension1()) || (dimension2 > orientation.getDimension3())))) {
-                    continue;
-                }
+            if (metrics != null) {
+                metrics.setContainerOrientations(metrics.getContainerOrientations() + 1);
+            }
+            if (state.getContainer().isCubic()) {
+                containerOrientation = 6;
+            }
+        }
 
-                long finalExaminedDimension = examinedDimension;
-                if (layers.stream().anyMatch(p -> p.getDimension() == finalExaminedDimension)) {
-                    continue;
-                }
+        BestCandidate best = new BestCandidate();
+        if (!runs.isEmpty()) {
+            pool.invoke(new CandidateSearch(state, runs, best, metrics, 0, runs.size()));
+        }
 
-                weight = 0;
-                for (Item item2 : state.getInputItems()) {
-                    if (item.getId() == item2.getId()) continue;
+        state.setBestVolume(best.getVolume());
+        state.setBestVariant(best.getVariant());
+        state.setBestIteration(best.getIteration());
+        state.setBestPlacement(best.getPlacement());
+        state.setHundredPercentPacked(best.isHundredPercentPacked());
+        state.setPartial(best.isPartial());
+    }
 
-                    weight = getDimensionDiff(examinedDimension, weight, item2);
-                }
-                layers.add(new Layer(weight, examinedDimension));
-            }
+    /**
+     * Packs a single candidate run on its own packing state.
+     *
+     * @param state the packing state, owned by the calling task.
+     * @param run the container orientation and layer thickness to pack.
+     * @param best the best packing found by all tasks so far.
+     * @param metrics the metrics of the simulation; null when nobody is listening.
+     */
+    private void packCandidate(PalletPackingState state, CandidateRun run, BestCandidate best,
+                               SimulationMetrics metrics) {
+        if (best.isSettledBefore(run.getOrdinal())) {
+            return;
+        }
+        if (state.isStopped()) {
+            best.markPartial();
+            return;
         }
+        long start = metrics != null ? System.nanoTime() : 0;
+        CandidateRunEvent event = PackingEvents.ENABLED ? CandidateRunEvent.start() : null;
+
+        state.useContainerOrientation(run.getOrientation());
+        state.restartPacking();
+        state.resetThickness(run.getLayerThickness(), run.getOrientation().getDimension2(),
+                run.getOrientation().getDimension3());
 
-        layers.sort(Comparator.comparing(Layer::getWeight));
-        return layers;
+        iterationCore(state, 0, run.getOrientation());
+        if (state.isPartial()) {
+            best.markPartial();
+        }
+        if (event != null) {
+            event.end(state, run.getContainerOrientation(), run.getLayerThickness());
+        }
+        if (metrics != null) {
+            finishRun(state, run.getContainerOrientation(), run.getLayerThickness(), start, metrics);
+        }
+
+        if (!state.isSuperseded()) {
+            state.validateBestState(run.getContainerOrientation(), run.getLayerIndex());
+            best.offer(run, state.getPackedVolume(), state.getBestPlacement(), state.isHundredPercentPacked());
+        }
+    }
+
+    /**
+     * Reports the metrics of a finished candidate run, adding them to the metrics of the simulation.
+     */
+    private void finishRun(PalletPackingState state, int containerOrientation, long layerThickness, long start,
+                           SimulationMetrics metrics) {
+        SimulationMetrics run = state.getRunMetrics();
+        run.setIterationNanos(System.nanoTime() - start);
+        metrics.add(run);
+        listener.onRunFinished(state.getContainer(), containerOrientation, layerThickness, run);
     }
 
     /**
-     * Increments a weight based on the source dimension and the item's lowest dimension.
-     * @param examinedDimension the source dimension length.
-     * @param weight the actual weight.
-     * @param item the item dimensions to evaluate.
-     * @return a layer weight.
+     * @return the thickness of the first layer of the best packing, or 0 if nothing was packed.
      */
-    private double getDimensionDiff(long examinedDimension, double weight, Item item) {
-        long dimdif;
-        dimdif = Math.abs(examinedDimension - item.getDimension1());
-        if (Math.abs(examinedDimension - item.getDimension2()) < dimdif) {
-            dimdif = Math.abs(examinedDimension - item.getDimension2());
+    private long getBestLayerThickness(PalletPackingState state) {
+        if (state.getBestVariant() == 0) {
+            return 0;
         }
-        if (Math.abs(examinedDimension - item.getDimension3()) < dimdif) {
-            dimdif = Math.abs(examinedDimension - item.getDimension3());
+        Volume orientation = state.getContainer().atOrientation(state.getBestVariant());
+        return state.getCandidateLayers().list(orientation).get(state.getBestIteration()).getDimension();
+    }
+
+    private int getMaxContainerOrientation(PalletPackingState state) {
+        switch (state.getContainer().getRotation()) {
+            case FULL:
+                return 6;
+            case HORIZONTAL:
+                return 2;
+            case NONE:
+            default:
+                return 1;
         }
-        weight += dimdif;
-        return weight;
     }
 
     /**
@@ -171,37 +387,46 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
     private void packLayer(PalletPackingState state, Volume orientation, long packedy) {
         long gapLengthX, gapLengthZ, maxGapZ;
         long newPositionX;
-        ScrapPad smallestZ;
+        int smallestZ;
 
         if (state.getLayerThickness() == 0) {
             state.setPacking(false);
             return;
         }
 
-        state.getScrapFirst().updateGaps(orientation.getDimension1(), 0);
+        ScrapPad edge = state.getScrapPad();
+        edge.reset(orientation.getDimension1());
 
         while (true) {
-            smallestZ = findSmallestZ(state);
-            maxGapZ = state.getRemainpz() - smallestZ.getGapZ();
+            if (state.isStopped()) {
+                // the boxes packed so far are kept, so the interrupted run still counts
+                state.setPartial(true);
+                state.setPacking(false);
+                return;
+            }
+            smallestZ = edge.findSmallestZ();
+            int previous = edge.getPrevious(smallestZ);
+            int next = edge.getNext(smallestZ);
+            maxGapZ = state.getRemainpz() - edge.getGapZ(smallestZ);
 
             // calculating remaining area in the XZ plane, based on the smallest z found
-            switch (smallestZ.isSituation()) {
+            switch (edge.isSituation(smallestZ)) {
                 case EMPTY: {
-                    gapLengthX = smallestZ.getGapX();
+                    gapLengthX = edge.getGapX(smallestZ);
                     gapLengthZ = maxGapZ;
                     break;
                 }
                 case ONLY_RIGHT_BOX: {
-                    gapLengthX = smallestZ.getGapX();
-                    gapLengthZ = smallestZ.getNext().getGapZ() - smallestZ.getGapZ();
+                    gapLengthX = edge.getGapX(smallestZ);
+                    gapLengthZ = edge.getGapZ(next) - edge.getGapZ(smallestZ);
                     break;
                 }
                 case ONLY_LEFT_BOX:
                 case EQUAL_SIDES:
                 case DIFFERENT_SIDES:
                 default: {
-                    gapLengthX = smallestZ.getGapX() - smallestZ.getPrevious().getGapX();
-                    gapLengthZ = smallestZ.getPrevious().getGapZ() - smallestZ.getGapZ();
+                    gapLengthX = edge.getGapX(smallestZ) - edge.getGapX(previous);
+                    gapLengthZ = edge.getGapZ(previous) - edge.getGapZ(smallestZ);
                     break;
                 }
             }
@@ -224,147 +449,119 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
             // - at right of an already occupied area, if there is enough space to do it;
             // - in an existing gap between two boxes.
             // the neighborhood for the gap then is updated, following the situations cited above.
-            long newPositionZ = smallestZ.getGapZ();
-            switch (smallestZ.isSituation()) {
+            long boxX = state.getCheckedBoxX();
+            long boxZ = state.getCheckedBoxZ();
+            long newPositionZ = edge.getGapZ(smallestZ);
+            switch (edge.isSituation(smallestZ)) {
                 case EMPTY: {
                     newPositionX = 0;
 
-                    if (state.getCheckedBoxX() == smallestZ.getGapX()) {
-                        smallestZ.incrementGapZ(state.getCheckedBoxZ());
+                    if (boxX == edge.getGapX(smallestZ)) {
+                        edge.incrementGapZ(smallestZ, boxZ);
                     } else {
-                        smallestZ.setNext(new ScrapPad(smallestZ, null, smallestZ.getGapX(), smallestZ.getGapZ()));
-                        smallestZ.updateGaps(state.getCheckedBoxX(), smallestZ.getGapZ() + state.getCheckedBoxZ());
+                        edge.insertAfter(smallestZ, edge.getGapX(smallestZ), edge.getGapZ(smallestZ));
+                        edge.updateGaps(smallestZ, boxX, edge.getGapZ(smallestZ) + boxZ);
                     }
                     break;
                 }
                 case ONLY_RIGHT_BOX: {
                     newPositionX = 0;
 
-                    if (state.getCheckedBoxX() == smallestZ.getGapX()) {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getNext().getGapZ()) {
-                            smallestZ.updateGaps(smallestZ.getNext().getGapX(), smallestZ.getNext().getGapZ());
-                            smallestZ.setNext(smallestZ.getNext().getNext());
-                            if (smallestZ.getNext() != null) {
-                                smallestZ.getNext().setPrevious(smallestZ);
-                            }
+                    if (boxX == edge.getGapX(smallestZ)) {
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(next)) {
+                            edge.updateGaps(smallestZ, edge.getGapX(next), edge.getGapZ(next));
+                            edge.remove(next);
                         } else {
-                            smallestZ.incrementGapZ(state.getCheckedBoxZ());
+                            edge.incrementGapZ(smallestZ, boxZ);
                         }
                     } else {
-                        newPositionX = smallestZ.getGapX() - state.getCheckedBoxX();
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getNext().getGapZ()) {
-                            smallestZ.incrementGapX(-state.getCheckedBoxX());
+                        newPositionX = edge.getGapX(smallestZ) - boxX;
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(next)) {
+                            edge.incrementGapX(smallestZ, -boxX);
                         } else {
-                            smallestZ.getNext().setPrevious(new ScrapPad(smallestZ, smallestZ.getNext()));
-                            smallestZ.setNext(smallestZ.getNext().getPrevious());
-                            smallestZ.getNext().setGapX(smallestZ.getGapX());
-                            smallestZ.setGapX(smallestZ.getGapX() - state.getCheckedBoxX());
-                            smallestZ.getNext().setGapZ(smallestZ.getGapZ() + state.getCheckedBoxZ());
+                            edge.insertAfter(smallestZ, edge.getGapX(smallestZ), edge.getGapZ(smallestZ) + boxZ);
+                            edge.incrementGapX(smallestZ, -boxX);
                         }
                     }
                     break;
                 }
                 case ONLY_LEFT_BOX: {
-                    newPositionX = smallestZ.getPrevious().getGapX();
+                    newPositionX = edge.getGapX(previous);
 
-                    if (state.getCheckedBoxX() == smallestZ.getGapX() - smallestZ.getPrevious().getGapX()) {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getPrevious().getGapZ()) {
-                            smallestZ.getPrevious().setGapX(smallestZ.getGapX());
-                            smallestZ.getPrevious().setNext(null);
+                    if (boxX == edge.getGapX(smallestZ) - edge.getGapX(previous)) {
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(previous)) {
+                            edge.setGapX(previous, edge.getGapX(smallestZ));
+                            edge.remove(smallestZ);
                         } else {
-                            smallestZ.incrementGapZ(state.getCheckedBoxZ());
+                            edge.incrementGapZ(smallestZ, boxZ);
                         }
                     } else {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getPrevious().getGapZ()) {
-                            smallestZ.getPrevious().incrementGapX(state.getCheckedBoxX());
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(previous)) {
+                            edge.incrementGapX(previous, boxX);
                         } else {
-                            smallestZ.getPrevious().setNext(new ScrapPad(smallestZ.getPrevious(), smallestZ));
-                            smallestZ.setPrevious(smallestZ.getPrevious().getNext());
-                            smallestZ.getPrevious().updateGaps(
-                                    smallestZ.getPrevious().getPrevious().getGapX() + state.getCheckedBoxX(),
-                                    smallestZ.getGapZ() + state.getCheckedBoxZ());
+                            edge.insertBefore(smallestZ, edge.getGapX(previous) + boxX, edge.getGapZ(smallestZ) + boxZ);
                         }
                     }
                     break;
                 }
                 case EQUAL_SIDES: {
-                    newPositionX = smallestZ.getPrevious().getGapX();
-
-                    if (state.getCheckedBoxX() == smallestZ.getGapX() - smallestZ.getPrevious().getGapX()) {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getNext().getGapZ()) {
-                            smallestZ.getPrevious().setGapX(smallestZ.getNext().getGapX());
-                            if (smallestZ.getNext().getNext() != null) {
-                                smallestZ.getPrevious().setNext(smallestZ.getNext().getNext());
-                                smallestZ.getNext().getNext().setPrevious(smallestZ.getPrevious());
-                            } else {
-                                smallestZ.getPrevious().setNext(null);
-                            }
+                    newPositionX = edge.getGapX(previous);
+
+                    if (boxX == edge.getGapX(smallestZ) - edge.getGapX(previous)) {
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(next)) {
+                            edge.setGapX(previous, edge.getGapX(next));
+                            edge.remove(next);
+                            edge.remove(smallestZ);
                         } else {
-                            smallestZ.incrementGapZ(state.getCheckedBoxZ());
+                            edge.incrementGapZ(smallestZ, boxZ);
                         }
-                    } else if (smallestZ.getPrevious().getGapX() < orientation.getDimension1() - smallestZ.getGapX()) {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getPrevious().getGapZ()) {
-                            smallestZ.incrementGapX(-state.getCheckedBoxX());
-                            newPositionX = smallestZ.getGapX();
+                    } else if (edge.getGapX(previous) < orientation.getDimension1() - edge.getGapX(smallestZ)) {
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(previous)) {
+                            edge.incrementGapX(smallestZ, -boxX);
+                            newPositionX = edge.getGapX(smallestZ);
                         } else {
-                            smallestZ.getPrevious().setNext(new ScrapPad(smallestZ.getPrevious(), smallestZ));
-                            smallestZ.setPrevious(smallestZ.getPrevious().getNext());
-                            smallestZ.getPrevious().updateGaps(
-                                    smallestZ.getPrevious().getPrevious().getGapX() + state.getCheckedBoxX(),
-                                    smallestZ.getGapZ() + state.getCheckedBoxZ());
+                            edge.insertBefore(smallestZ, edge.getGapX(previous) + boxX, edge.getGapZ(smallestZ) + boxZ);
                         }
                     } else {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getPrevious().getGapZ()) {
-                            smallestZ.getPrevious().setGapX(smallestZ.getPrevious().getGapX() + state.getCheckedBoxX());
-                            newPositionX = smallestZ.getPrevious().getGapX();
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(previous)) {
+                            edge.incrementGapX(previous, boxX);
+                            newPositionX = edge.getGapX(previous);
                         } else {
-                            newPositionX = smallestZ.getGapX() - state.getCheckedBoxX();
-                            smallestZ.getNext().setPrevious(new ScrapPad(smallestZ, smallestZ.getNext()));
-                            smallestZ.setNext(smallestZ.getNext().getPrevious());
-                            smallestZ.getNext().updateGaps(
-                                    smallestZ.getGapX(),
-                                    smallestZ.getGapZ() + state.getCheckedBoxZ());
-                            smallestZ.incrementGapX(-state.getCheckedBoxX());
+                            newPositionX = edge.getGapX(smallestZ) - boxX;
+                            edge.insertAfter(smallestZ, edge.getGapX(smallestZ), edge.getGapZ(smallestZ) + boxZ);
+                            edge.incrementGapX(smallestZ, -boxX);
                         }
                     }
                     break;
                 }
                 case DIFFERENT_SIDES:
                 default: {
-                    newPositionX = smallestZ.getPrevious().getGapX();
+                    newPositionX = edge.getGapX(previous);
 
-                    if (state.getCheckedBoxX() == smallestZ.getGapX() - smallestZ.getPrevious().getGapX()) {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getPrevious().getGapZ()) {
-                            smallestZ.getPrevious().setGapX(smallestZ.getGapX());
-                            smallestZ.getPrevious().setNext(smallestZ.getNext());
-                            smallestZ.getNext().setPrevious(smallestZ.getPrevious());
+                    if (boxX == edge.getGapX(smallestZ) - edge.getGapX(previous)) {
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(previous)) {
+                            edge.setGapX(previous, edge.getGapX(smallestZ));
+                            edge.remove(smallestZ);
                         } else {
-                            smallestZ.incrementGapZ(state.getCheckedBoxZ());
+                            edge.incrementGapZ(smallestZ, boxZ);
                         }
                     } else {
-                        if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getPrevious().getGapZ()) {
-                            smallestZ.getPrevious().incrementGapX(state.getCheckedBoxX());
-                        } else if (smallestZ.getGapZ() + state.getCheckedBoxZ() == smallestZ.getNext().getGapZ()) {
-                            newPositionX = smallestZ.getGapX() - state.getCheckedBoxX();
-                            smallestZ.incrementGapX(-state.getCheckedBoxX());
+                        if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(previous)) {
+                            edge.incrementGapX(previous, boxX);
+                        } else if (edge.getGapZ(smallestZ) + boxZ == edge.getGapZ(next)) {
+                            newPositionX = edge.getGapX(smallestZ) - boxX;
+                            edge.incrementGapX(smallestZ, -boxX);
                         } else {
-                            smallestZ.getPrevious().setNext(new ScrapPad(smallestZ.getPrevious(), smallestZ));
-                            smallestZ.setPrevious(smallestZ.getPrevious().getNext());
-                            smallestZ.getPrevious().updateGaps(
-                                    smallestZ.getPrevious().getPrevious().getGapX() + state.getCheckedBoxX(),
-                                    smallestZ.getGapZ() + state.getCheckedBoxZ());
+                            edge.insertBefore(smallestZ, edge.getGapX(previous) + boxX, edge.getGapZ(smallestZ) + boxZ);
                         }
                     }
                     break;
                 }
             }
 
-            state.getItemsToPack()[state.getCheckedBoxIndex()]
-                    .setPosition(newPositionX, packedy, newPositionZ);
-            state.getItemsToPack()[state.getCheckedBoxIndex()]
-                    .packAtOrientation(state.getCheckedBoxX(), state.getCheckedBoxY(), state.getCheckedBoxZ());
-            state.setPackedVolume(state.getPackedVolume() +
-                    state.getItemsToPack()[state.getCheckedBoxIndex()].getVolume());
+            state.packUnit(state.getCheckedBoxIndex(), newPositionX, packedy, newPositionZ,
+                    state.getCheckedBoxX(), state.getCheckedBoxY(), state.getCheckedBoxZ());
+            state.setPackedVolume(state.getPackedVolume() + state.getTypeVolume(state.getCheckedBoxIndex()));
 
             if (state.getPackedVolume() == state.getTotalContainerVolume() || state.getPackedVolume() == state.getTotalItemVolume()) {
                 state.setPacking(false);
@@ -375,17 +572,20 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
 
     /**
      * Finds a proper layer thickness by looking at the unpacked boxes and the remaining container space.
+     * Package-private so the benchmarks can measure it on its own.
      *
      * @param thickness the layer thickness.
      */
-    private void findLayer(PalletPackingState state, Volume orientation, double thickness) {
+    void findLayer(PalletPackingState state, Volume orientation, double thickness) {
         long examinedDimension, dimension2, dimension3;
         double layereval, eval = 100000000;
         int max;
         state.setLayerThickness(0);
-        Item[] toPack = Arrays.stream(state.getItemsToPack()).filter(j -> !j.isPacked()).toArray(Item[]::new);
-        for (int x = 0; x < toPack.length; x++) {
-            switch (toPack[x].getRotation()) {
+        for (int type = 0; type < state.getTypeCount(); type++) {
+            if (state.getRemainingQuantity(type) == 0) {
+                continue;
+            }
+            switch (state.getTypeRotation(type)) {
                 case FULL: max = 3; break;
                 case HORIZONTAL: max = 2; break;
                 case NONE:
@@ -394,31 +594,27 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
             for (int y = 1; y <= max; y++) {
                 switch (y) {
                     case 2:
-                        examinedDimension = toPack[x].getDimension2();
-                        dimension2 = toPack[x].getDimension1();
-                        dimension3 = toPack[x].getDimension3();
+                        examinedDimension = state.getTypeDimension2(type);
+                        dimension2 = state.getTypeDimension1(type);
+                        dimension3 = state.getTypeDimension3(type);
                         break;
                     case 3:
-                        examinedDimension = toPack[x].getDimension3();
-                        dimension2 = toPack[x].getDimension1();
-                        dimension3 = toPack[x].getDimension2();
+                        examinedDimension = state.getTypeDimension3(type);
+                        dimension2 = state.getTypeDimension1(type);
+                        dimension3 = state.getTypeDimension2(type);
                         break;
                     default:
-                        examinedDimension = toPack[x].getDimension1();
-                        dimension2 = toPack[x].getDimension2();
-                        dimension3 = toPack[x].getDimension3();
+                        examinedDimension = state.getTypeDimension1(type);
+                        dimension2 = state.getTypeDimension2(type);
+                        dimension3 = state.getTypeDimension3(type);
                         break;
                 }
-                layereval = 0;
                 if ((examinedDimension <= thickness) && (((dimension2 <= orientation.getDimension1()) &&
                     (dimension3 <= orientation.getDimension3())) ||
                     ((dimension3 <= orientation.getDimension1()) && (dimension2 <= orientation.getDimension3())))) {
-                    for (int z = 0; z < toPack.length; z++) {
-                        if (x != z) {
-                            Item otherItem = toPack[z];
-                            layereval = getDimensionDiff(examinedDimension, layereval, otherItem);
-                        }
-                    }
+                    // the score over all the other unpacked units; the examined unit itself adds nothing to it,
+                    // as the examined dimension is one of its own
+                    layereval = state.getThicknessScore(type, y);
                     if (layereval < eval) {
                         eval = layereval;
                         state.setLayerThickness(examinedDimension);
@@ -434,13 +630,14 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
     /**
      * Finds the most proper boxes by looking at the available orientations, empty space given, adjacent boxes
      * and container limits.
+     * Package-private so the benchmarks can measure it on its own.
      *
      * @param state            the packing state.
      * @param maxGapX          the container x-dimension.
      * @param currentGapZ      the remaining z-dimension gap.
      * @param maxGapZ          the container z-dimension.
      */
-    private void findBox(PalletPackingState state, long maxGapX, long currentGapZ, long maxGapZ) {
+    void findBox(PalletPackingState state, long maxGapX, long currentGapZ, long maxGapZ) {
         int MAX_LENGTH = 1048576;
         state.setBoxFittingX(MAX_LENGTH);
         state.setBoxFittingY(MAX_LENGTH);
@@ -450,34 +647,21 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
         state.setBotNotFittingZ(MAX_LENGTH);
         state.setBoxFittingIndex(-1);
         state.setBoxNotFittingIndex(-1);
+        state.countFindBox();
 
-        for (int y = 0; y < state.getItemsToPack().length; y += state.getItemsToPack()[y].getQuantity()) {
-            int index;
-
-            for (index = y; index < (index + state.getItemsToPack()[y].getQuantity()) - 1; index++) {
-                if (index == state.getItemsToPack().length) return;
-                if (!state.getItemsToPack()[index].isPacked()) {
-                    break;
-                }
-            }
-            if (state.getItemsToPack()[index].isPacked()) {
+        OrientationTable orientations = state.getOrientations();
+        for (int type = 0; type < state.getTypeCount(); type++) {
+            if (state.getRemainingQuantity(type) == 0) {
                 continue;
             }
 
-            int max;
-            if (state.getItemsToPack()[index].isCubic()) {
-                max = 1;
-            } else {
-                switch (state.getItemsToPack()[index].getRotation()) {
-                    case FULL: max = 6; break;
-                    case HORIZONTAL: max = 2; break;
-                    case NONE:
-                    default: max = 1; break;
+            int mask = state.getFitMask(type);
+            for (int i = orientations.getStart(type), bit = 1; i < orientations.getEnd(type); i++, bit <<= 1) {
+                if ((mask & bit) != 0) {
+                    analyzeBox(state, type, maxGapX, currentGapZ, maxGapZ,
+                            orientations.getX(i), orientations.getY(i), orientations.getZ(i));
                 }
             }
-            for (int i = 1; i <= max; i++) {
-                analyzeBox(state, index, maxGapX, currentGapZ, maxGapZ, state.getItemsToPack()[index].atOrientation(i));
-            }
         }
 
     }
@@ -488,16 +672,17 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
      * if false, reserve the found values for a possible greater layer thickness.<br>
      *
      * @param state       the packing state.
-     * @param index       the actual box index being evaluated.
+     * @param index       the type of the box being evaluated.
      * @param maxGapX     the container x-dimension.
      * @param currentGapZ the currently used z-dimension.
      * @param maxGapZ     the container z-dimension.
-     * @param orientation the item dimensions.
+     * @param dimension1  the item x-dimension.
+     * @param dimension2  the item y-dimension.
+     * @param dimension3  the item z-dimension.
      */
-    private void analyzeBox(PalletPackingState state, int index, long maxGapX, long currentGapZ, long maxGapZ, Volume orientation) {
-        long dimension1 = orientation.getDimension1();
-        long dimension2 = orientation.getDimension2();
-        long dimension3 = orientation.getDimension3();
+    private void analyzeBox(PalletPackingState state, int index, long maxGapX, long currentGapZ, long maxGapZ,
+                            long dimension1, long dimension2, long dimension3) {
+        state.countBoxEvaluation();
         long diff1 = Math.abs(maxGapX - dimension1);
         long diff2 = Math.abs(state.getLayerThickness() - dimension2);
         long diff3 = Math.abs(currentGapZ - dimension3);
@@ -530,21 +715,6 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
         }
     }
 
-    /**
-     * Finds the item with the smallest z-dimension gap.
-     */
-    private ScrapPad findSmallestZ(PalletPackingState state) {
-        ScrapPad temp = state.getScrapFirst();
-        ScrapPad smallest = temp;
-        while (temp.getNext() != null) {
-            if (temp.getNext().getGapZ() < smallest.getGapZ()) {
-                smallest = temp.getNext();
-            }
-            temp = temp.getNext();
-        }
-        return smallest;
-    }
-
     /**
      * After finding each box, evaluate the candidate boxes and the current layer.
      * Verifies these rules:<br>
@@ -554,7 +724,8 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
      * - if there is no gap in the edge of the current layer, the packing of this layer is done.<br>
      * - if there is not fitting box to the current layer gap, skip this gap and even it by arranging the already packed items.
      */
-    private void checkFound(PalletPackingState state, ScrapPad smallestZ) {
+    private void checkFound(PalletPackingState state, int smallestZ) {
+        ScrapPad edge = state.getScrapPad();
         state.setEvenedLayer(false);
 
         if (state.getBoxFittingIndex() > -1) {
@@ -564,10 +735,10 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
             state.setCheckedBoxZ(state.getBoxZ());
         } else {
             if ((state.getBoxNotFittingIndex() > -1) &&
-                (state.getLayerInLayer() != 0 || smallestZ.isSituation().equals(ScrapPad.Situation.EMPTY))) {
+                (state.getLayerInLayer() != 0 || edge.isSituation(smallestZ).equals(ScrapPad.Situation.EMPTY))) {
                 if (state.getLayerInLayer() == 0) {
                     state.setPreLayer(state.getLayerThickness());
-                    state.setLayerInLayerZ(smallestZ.getGapZ());
+                    state.setLayerInLayerZ(edge.getGapZ(smallestZ));
                 }
                 state.setCheckedBoxIndex(state.getBoxNotFittingIndex());
                 state.setCheckedBoxX(state.getbBoxX());
@@ -577,40 +748,36 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
                 state.setLayerThickness(state.getbBoxY());
             } else {
                 state.setEvenedLayer(true);
-                switch (smallestZ.isSituation()) {
+                int previous = edge.getPrevious(smallestZ);
+                int next = edge.getNext(smallestZ);
+                switch (edge.isSituation(smallestZ)) {
                     case EMPTY:  {
                         state.setEvenedLayer(false);
                         state.setLayerDone(true);
                         break;
                     }
                     case ONLY_RIGHT_BOX: {
-                        smallestZ.updateGaps(smallestZ.getNext().getGapX(), smallestZ.getNext().getGapZ());
-                        smallestZ.setNext(smallestZ.getNext().getNext());
-                        if (smallestZ.getNext() != null) {
-                            smallestZ.getNext().setPrevious(smallestZ);
-                        }
+                        edge.updateGaps(smallestZ, edge.getGapX(next), edge.getGapZ(next));
+                        edge.remove(next);
                         break;
                     }
                     case ONLY_LEFT_BOX: {
-                        smallestZ.getPrevious().setNext(null);
-                        smallestZ.getPrevious().setGapX(smallestZ.getGapX());
+                        edge.setGapX(previous, edge.getGapX(smallestZ));
+                        edge.remove(smallestZ);
                         break;
                     }
                     case EQUAL_SIDES: {
-                        smallestZ.getPrevious().setNext(smallestZ.getNext().getNext());
-                        if (smallestZ.getNext().getNext() != null) {
-                            smallestZ.getNext().getNext().setPrevious(smallestZ.getPrevious());
-                        }
-                        smallestZ.getPrevious().setGapX(smallestZ.getNext().getGapX());
+                        edge.setGapX(previous, edge.getGapX(next));
+                        edge.remove(next);
+                        edge.remove(smallestZ);
                         break;
                     }
                     case DIFFERENT_SIDES:
                     default: {
-                        smallestZ.getPrevious().setNext(smallestZ.getNext());
-                        smallestZ.getNext().setPrevious(smallestZ.getPrevious());
-                        if (smallestZ.getPrevious().getGapZ() < smallestZ.getNext().getGapZ()) {
-                            smallestZ.getPrevious().setGapX(smallestZ.getGapX());
+                        if (edge.getGapZ(previous) < edge.getGapZ(next)) {
+                            edge.setGapX(previous, edge.getGapX(smallestZ));
                         }
+                        edge.remove(smallestZ);
                         break;
                     }
                 }
@@ -618,31 +785,41 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
         }
     }
 
+    /**
+     * Builds the solution from the placements of the best packing, kept while iterating.
+     * The solution's items are only created, from the placements, when the solution's lists are first read.
+     */
     private Solution report(PalletPackingState state) {
-        long packedy = 0;
-
         Volume orientation = state.getContainer().atOrientation(state.getBestVariant());
-        List<Layer> layers = listCandidateLayers(state, orientation);
-
-        state.restartPacking();
-        state.resetThickness(layers.get(state.getBestIteration()).getDimension(), orientation.getDimension2(), orientation.getDimension3());
-        iterationCore(state, packedy, orientation);
 
-        //boolean isValid = isSolutionValid(state);
-
-        List<Item> toPack = Arrays.asList(state.getItemsToPack());
-        toPack.sort(Comparator.comparing(Item::getPositionZ).thenComparing(Item::getPositionY).thenComparing(Item::getPositionX));
+        PlacementSnapshot placement = state.getBestPlacement();
+        if (placement == null) {
+            placement = new PlacementSnapshot(state.getTypeCount(), state.getUnitCount());
+        }
+        PlacementSnapshot best = placement;
+        TypeClasses classes = state.getTypeClasses();
+        List<Item> inputItems = new ArrayList<>(state.getInputItems());
 
         return new Solution(
-                new ArrayList<>(state.getInputItems()),
-                toPack,
+                inputItems,
+                () -> {
+                    List<Item> toPack = best.toItems(classes, inputItems);
+                    toPack.sort(Comparator.comparingLong(Item::getPositionZ).thenComparingLong(Item::getPositionY)
+                            .thenComparingLong(Item::getPositionX));
+                    return toPack;
+                },
                 orientation,
-                state.getBestVolume());
+                state.getBestVolume(),
+                state.getTotalItemVolume(),
+                placement.getPackedUnits(),
+                placement.getPackedUnits() == state.getUnitCount(),
+                state.isPartial() && !state.isHundredPercentPacked());
     }
 
     /**
      * The packing flow execution. It's used while iterating the defined axes for both
-     * container and items, and to recover the best packing solution.
+     * container and items.
+     * Before each layer, the run is stopped if even filling the rest of the container could not beat the best packing.
      * @param state the packing state.
      * @param packedy how much of the container's y axis is used.
      * @param orientation the container orientation.
@@ -651,9 +828,19 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
         long prepackedy;
         long preremainpy;
         do {
+            if (!state.canImprove(packedy, orientation)) {
+                state.setPruned(true);
+                state.setPacking(false);
+                break;
+            }
             state.setLayerInLayer(0);
             state.setLayerDone(false);
+            state.countLayer();
+            LayerEvent event = PackingEvents.ENABLED ? LayerEvent.start() : null;
             packLayer(state, orientation, packedy);
+            if (event != null) {
+                event.end(state, state.getLayerThickness(), false);
+            }
             packedy += state.getLayerThickness();
             state.setMaxAvailableThickness(orientation.getDimension2() - packedy);
             if (state.getLayerInLayer() != 0) {
@@ -664,13 +851,18 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
                 state.setRemainpz(state.getLayerInLayerZ());
                 state.setLayerThickness(state.getLayerInLayer());
                 state.setLayerDone(false);
+                state.countLayerInLayer();
+                event = PackingEvents.ENABLED ? LayerEvent.start() : null;
                 packLayer(state, orientation, packedy);
+                if (event != null) {
+                    event.end(state, state.getLayerThickness(), true);
+                }
                 packedy = prepackedy;
                 state.setMaxAvailableThickness(preremainpy);
                 state.setRemainpz(orientation.getDimension3());
             }
             findLayer(state, orientation, state.getMaxAvailableThickness());
-        } while (state.isPacking());
+        } while (state.isPacking() && !state.isSuperseded());
     }
 
     /**
@@ -681,13 +873,22 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
     private boolean isSolutionValid(PalletPackingState state) {
         boolean hasCollision = false;
 
-        for (Item item1 : state.getItemsToPack()) {
-            for (Item item2 : state.getItemsToPack()) {
-                if (item1.getId() != item2.getId()) {
+        List<Integer> packedUnits = new ArrayList<>();
+        for (int type = 0; type < state.getTypeCount(); type++) {
+            for (int i = 0; i < state.getPackedQuantity(type); i++) {
+                packedUnits.add(state.getFirstUnit(type) + i);
+            }
+        }
+        for (int item1 : packedUnits) {
+            for (int item2 : packedUnits) {
+                if (item1 != item2) {
                     // boxes' faces can touch, but cannot overlap
-                    if ((item1.getMinPositionX() < item2.getMaxPositionX() && item1.getMaxPositionX() > item2.getMinPositionX()) &&
-                        (item1.getMinPositionY() < item2.getMaxPositionY() && item1.getMaxPositionY() > item2.getMinPositionY()) &&
-                        (item1.getMinPositionZ() < item2.getMaxPositionZ() && item1.getMaxPositionZ() > item2.getMinPositionZ())) {
+                    if ((state.getPositionX(item1) < state.getPositionX(item2) + state.getOrientationX(item2) &&
+                         state.getPositionX(item1) + state.getOrientationX(item1) > state.getPositionX(item2)) &&
+                        (state.getPositionY(item1) < state.getPositionY(item2) + state.getOrientationY(item2) &&
+                         state.getPositionY(item1) + state.getOrientationY(item1) > state.getPositionY(item2)) &&
+                        (state.getPositionZ(item1) < state.getPositionZ(item2) + state.getOrientationZ(item2) &&
+                         state.getPositionZ(item1) + state.getOrientationZ(item1) > state.getPositionZ(item2))) {
                         hasCollision = true;
                         break;
                     }
@@ -698,4 +899,39 @@ public class PalletPackingSimulation implements ISimulation<Container, Item> {
 
         return !hasCollision;
     }
+
+    /**
+     * Splits the candidate runs in halves, until each task packs a single run.
+     */
+    private final class CandidateSearch extends RecursiveAction {
+
+        private final PalletPackingState state;
+        private final List<CandidateRun> runs;
+        private final BestCandidate best;
+        private final SimulationMetrics metrics;
+        private final int from;
+        private final int to;
+
+        private CandidateSearch(PalletPackingState state, List<CandidateRun> runs, BestCandidate best,
+                                SimulationMetrics metrics, int from, int to) {
+            this.state = state;
+            this.runs = runs;
+            this.best = best;
+            this.metrics = metrics;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                CandidateRun run = runs.get(from);
+                packCandidate(state.fork(best, run.getOrdinal()), run, best, metrics);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CandidateSearch(state, runs, best, metrics, from, middle),
+                    new CandidateSearch(state, runs, best, metrics, middle, to));
+        }
+    }
 }
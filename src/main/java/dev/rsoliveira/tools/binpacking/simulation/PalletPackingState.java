@@ -2,9 +2,13 @@ package dev.rsoliveira.tools.binpacking.simulation;
 
 import dev.rsoliveira.tools.binpacking.domain.Container;
 import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
 import dev.rsoliveira.tools.binpacking.domain.ScrapPad;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class PalletPackingState implements Cloneable {
@@ -39,44 +43,278 @@ public class PalletPackingState implements Cloneable {
 
     private Container container;
     private List<Item> inputItems;
-    private Item[] itemsToPack;
-
-    private ScrapPad scrapFirst;
+    /**
+     * The items the type tables are built from: the input items folded by geometry, or, for the later containers of a
+     * fleet, every type of the first container with the quantity left to pack, fully packed types included.
+     */
+    private final List<Item> typeItems;
+    private final TypeClasses typeClasses;
+
+    /**
+     * Item types, in the same order as the first input item of each.
+     * Units of a type are always packed in order, so the number of packed units of a type is also the cursor of the
+     * next unit to pack.
+     */
+    private final long[] typeDimension1, typeDimension2, typeDimension3;
+    private final double[] typeVolume;
+    private final ItemRotation[] typeRotation;
+    private final int[] typeQuantity;
+    private final int[] typeFirstUnit;
+    private final int[] typePacked;
+
+    /**
+     * Placement of each unit, one per item quantity, grouped by type; only meaningful for packed units.
+     */
+    private final long[] positionX, positionY, positionZ;
+    private final long[] orientationX, orientationY, orientationZ;
+
+    private final OrientationTable orientations;
+    private final int[] fitMasks;
+    private final long[] fitHeights;
+    private Volume fitContainer;
+    private final ThicknessHistogram thicknessHistogram;
+    private final CandidateLayers candidateLayers;
+
+    private final ScrapPad scrapPad;
+    private PlacementSnapshot bestPlacement;
+
+    private BestCandidate sharedBest;
+    private int ordinal;
+
+    /**
+     * Search counters of the current packing run, reported to the simulation listener.
+     */
+    private long findBoxCalls, boxEvaluations, layers, layersInLayer;
+    private long scrapPadCreated;
+    /**
+     * Whether the current packing run was stopped, as it could no longer beat the best packing.
+     */
+    private boolean pruned;
+
+    /**
+     * Limits of the search: the System.nanoTime() at which it must stop, and a token that stops it when cancelled.
+     */
+    private boolean limited;
+    private boolean timed;
+    private long deadline;
+    private CancellationToken cancellationToken;
+    /**
+     * Whether the search was stopped by its limits before trying all candidates.
+     */
+    private boolean partial;
 
     public PalletPackingState(Container container, List<Item> items) {
+        this(container, new TypeClasses(items));
+    }
+
+    private PalletPackingState(Container container, TypeClasses classes) {
+        this(container, classes, new OrientationTable(classes.getTypes()), new ThicknessHistogram(classes.getTypes()),
+                new CandidateLayers(classes), new ScrapPad());
+    }
+
+    private PalletPackingState(Container container, TypeClasses classes, OrientationTable orientations,
+                               ThicknessHistogram thicknessHistogram, CandidateLayers candidateLayers,
+                               ScrapPad scrapPad) {
         this.container = container;
-        this.inputItems = items;
+        this.typeClasses = classes;
+        this.inputItems = classes.getItems();
+        this.typeItems = classes.getTypes();
+
+        int types = typeItems.size();
+        this.typeDimension1 = new long[types];
+        this.typeDimension2 = new long[types];
+        this.typeDimension3 = new long[types];
+        this.typeVolume = new double[types];
+        this.typeRotation = new ItemRotation[types];
+        this.typeQuantity = new int[types];
+        this.typeFirstUnit = new int[types];
+        this.typePacked = new int[types];
 
         double totalItemVolume = 0.0;
         int total = 0;
-        for (Item item : items) {
+        for (int type = 0; type < types; type++) {
+            Item item = typeItems.get(type);
+            typeDimension1[type] = item.getDimension1();
+            typeDimension2[type] = item.getDimension2();
+            typeDimension3[type] = item.getDimension3();
+            typeVolume[type] = item.getVolume();
+            typeRotation[type] = item.getRotation();
+            typeQuantity[type] = item.getQuantity();
+            typeFirstUnit[type] = total;
             total += item.getQuantity();
             totalItemVolume += (item.getVolume() * item.getQuantity());
         }
         this.totalItemVolume = totalItemVolume;
-        this.itemsToPack = new Item[total];
-
-        int index = 0;
-        long totalItemsToPack = 0;
-        for (Item item : items) {
-            totalItemsToPack += item.getQuantity();
-            for (; index < totalItemsToPack; index++) {
-                this.itemsToPack[index] =
-                        new Item(index, item.getCode(),
-                                item.getDimension1(), item.getDimension2(), item.getDimension3(), item.getQuantity(),
-                                item.getRotation());
-            }
-        }
 
-        this.scrapFirst = new ScrapPad();
+        this.positionX = new long[total];
+        this.positionY = new long[total];
+        this.positionZ = new long[total];
+        this.orientationX = new long[total];
+        this.orientationY = new long[total];
+        this.orientationZ = new long[total];
+
+        this.orientations = orientations;
+        this.fitMasks = new int[types];
+        this.fitHeights = new long[types];
+        this.thicknessHistogram = thicknessHistogram;
+        this.candidateLayers = candidateLayers;
+
+        this.scrapPad = scrapPad;
         this.hundredPercentPacked = false;
     }
 
+    /**
+     * Creates a new packing state for the same container and items, used by a single task of a parallel search.
+     * @param sharedBest the best packing found by all tasks of the search.
+     * @param ordinal the position of the task's candidate run in the sequential search order.
+     * @return a new packing state.
+     */
+    PalletPackingState fork(BestCandidate sharedBest, int ordinal) {
+        PalletPackingState other = new PalletPackingState(container, typeClasses, orientations,
+                thicknessHistogram.fork(), candidateLayers, new ScrapPad());
+        other.sharedBest = sharedBest;
+        other.ordinal = ordinal;
+        other.limited = limited;
+        other.timed = timed;
+        other.deadline = deadline;
+        other.cancellationToken = cancellationToken;
+        return other;
+    }
+
+    /**
+     * Creates the packing state of the next container of a fleet, holding the units the best packing of this state
+     * left out.
+     * The orientation table, the distinct dimensions of the thickness histogram and the edge of the layers are kept;
+     * the candidate layers are kept too, unless an input item was fully packed, as they don't depend on quantities.
+     * Types keep their indexes, fully packed ones with no units left, so no unit is copied. When the input items left
+     * would fold into types listed in another order, the next state is built from them anew instead.
+     * @return a new packing state.
+     */
+    PalletPackingState next() {
+        int[] packed = new int[typeItems.size()];
+        for (int type = 0; type < packed.length; type++) {
+            packed[type] = bestPlacement != null ? bestPlacement.getTypePacked(type) : 0;
+        }
+        TypeClasses nextClasses = typeClasses.next(packed);
+        if (nextClasses == null) {
+            return new PalletPackingState(container, typeClasses.remaining(packed));
+        }
+
+        int[] quantities = new int[packed.length];
+        for (int type = 0; type < quantities.length; type++) {
+            quantities[type] = nextClasses.getTypes().get(type).getQuantity();
+        }
+        CandidateLayers nextLayers = nextClasses.getItems().size() == inputItems.size() ? candidateLayers :
+                new CandidateLayers(nextClasses);
+        return new PalletPackingState(container, nextClasses, orientations, thicknessHistogram.rebase(quantities),
+                nextLayers, scrapPad);
+    }
+
+    /**
+     * @return true if the candidate run using this state can no longer become the best one, as a run that comes
+     * before it has already packed 100%.
+     */
+    public boolean isSuperseded() {
+        return sharedBest != null && sharedBest.isSettledBefore(ordinal);
+    }
+
+    /**
+     * Limits the search in time, and lets it be cancelled.
+     * @param timeBudget the longest time the search may take, from now on; null for no limit.
+     * @param token stops the search when cancelled; may be null.
+     */
+    void limitSearch(Duration timeBudget, CancellationToken token) {
+        this.limited = timeBudget != null || token != null;
+        this.timed = timeBudget != null;
+        this.deadline = timed ? System.nanoTime() + timeBudget.toNanos() : 0;
+        this.cancellationToken = token;
+    }
+
+    /**
+     * @return true if the search ran out of time or was cancelled.
+     */
+    public boolean isStopped() {
+        return limited && ((cancellationToken != null && cancellationToken.isCancelled()) ||
+                           (timed && System.nanoTime() - deadline >= 0));
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    /**
+     * Starts a new packing run, with no unit of any type packed.
+     */
     public void restartPacking() {
         setPackedVolume(0.0);
         setPacking(true);
-        for (int i = 0; i < getItemsToPack().length; i++) {
-            getItemsToPack()[i].reset();
+        Arrays.fill(typePacked, 0);
+        thicknessHistogram.restart();
+        findBoxCalls = 0;
+        boxEvaluations = 0;
+        layers = 0;
+        layersInLayer = 0;
+        scrapPadCreated = scrapPad.getCreated();
+        pruned = false;
+    }
+
+    void countFindBox() {
+        findBoxCalls++;
+    }
+
+    void countBoxEvaluation() {
+        boxEvaluations++;
+    }
+
+    void countLayer() {
+        layers++;
+    }
+
+    void countLayerInLayer() {
+        layersInLayer++;
+    }
+
+    /**
+     * @return the number of units packed by the current packing run, of all types.
+     */
+    int getPackedUnits() {
+        int packed = 0;
+        for (int count : typePacked) {
+            packed += count;
+        }
+        return packed;
+    }
+
+    /**
+     * @return the search counters of the current packing run.
+     */
+    SimulationMetrics getRunMetrics() {
+        SimulationMetrics metrics = new SimulationMetrics();
+        metrics.setCandidateRuns(1);
+        metrics.setPrunedRuns(pruned ? 1 : 0);
+        metrics.setFindBoxCalls(findBoxCalls);
+        metrics.setBoxEvaluations(boxEvaluations);
+        metrics.setScrapPadNodes(scrapPad.getCreated() - scrapPadCreated);
+        metrics.setLayers(layers);
+        metrics.setLayersInLayer(layersInLayer);
+        return metrics;
+    }
+
+    /**
+     * Selects the container orientation of the next packing run, flagging the item orientations that fit in it.
+     * @param orientation the container orientation.
+     */
+    public void useContainerOrientation(Volume orientation) {
+        if (fitContainer == null || fitContainer.getDimension1() != orientation.getDimension1() ||
+            fitContainer.getDimension2() != orientation.getDimension2() ||
+            fitContainer.getDimension3() != orientation.getDimension3()) {
+            orientations.fitMasks(orientation, fitMasks);
+            orientations.lowestHeights(fitMasks, fitHeights);
+            fitContainer = orientation;
         }
     }
 
@@ -86,14 +324,65 @@ public class PalletPackingState implements Cloneable {
         setRemainpz(remainpz);
     }
 
+    /**
+     * Tells whether the current packing run can still beat the best packing, once the layers below the given height
+     * are packed. The run can pack no more than the volume of the container above that height, nor more than the
+     * volume of the units left that fit in it.
+     * @param packedy how much of the container's y axis is used.
+     * @param orientation the container orientation.
+     * @return false if the run can no longer become the best one.
+     */
+    public boolean canImprove(long packedy, Volume orientation) {
+        long remainingHeight = orientation.getDimension2() - packedy;
+        double fitting = 0.0;
+        for (int type = 0; type < typeVolume.length; type++) {
+            if (typePacked[type] < typeQuantity[type] && fitHeights[type] <= remainingHeight) {
+                fitting += typeVolume[type] * (typeQuantity[type] - typePacked[type]);
+            }
+        }
+        double free = (double) orientation.getDimension1() * orientation.getDimension3() * remainingHeight;
+        double bound = packedVolume + Math.min(fitting, free);
+        if (sharedBest != null) {
+            return sharedBest.canBeBeatenBy(ordinal, bound);
+        }
+        return bound > getBestVolume();
+    }
+
+    public boolean isPruned() {
+        return pruned;
+    }
+
+    public void setPruned(boolean pruned) {
+        this.pruned = pruned;
+    }
+
     public void validateBestState(int containerOrientation, int layersindex) {
         if (getPackedVolume() > getBestVolume()) {
             setBestVolume(getPackedVolume());
             setBestVariant(containerOrientation);
             setBestIteration(layersindex);
+            if (bestPlacement == null) {
+                bestPlacement = new PlacementSnapshot(getTypeCount(), getUnitCount());
+            }
+            bestPlacement.capture(typePacked, positionX, positionY, positionZ, orientationX, orientationY, orientationZ);
         }
     }
 
+    /**
+     * Packs the next unit of a type at the given position and orientation.
+     */
+    public void packUnit(int type, long positionX, long positionY, long positionZ,
+                           long orientationX, long orientationY, long orientationZ) {
+        int unit = typeFirstUnit[type] + typePacked[type]++;
+        thicknessHistogram.remove(type);
+        this.positionX[unit] = positionX;
+        this.positionY[unit] = positionY;
+        this.positionZ[unit] = positionZ;
+        this.orientationX[unit] = orientationX;
+        this.orientationY[unit] = orientationY;
+        this.orientationZ[unit] = orientationZ;
+    }
+
     public boolean isPacking() {
         return packing;
     }
@@ -370,12 +659,128 @@ public class PalletPackingState implements Cloneable {
         return inputItems;
     }
 
-    public Item[] getItemsToPack() {
-        return itemsToPack;
+    /**
+     * @return the types of the input items.
+     */
+    TypeClasses getTypeClasses() {
+        return typeClasses;
+    }
+
+    public int getTypeCount() {
+        return typeVolume.length;
+    }
+
+    public long getTypeDimension1(int type) {
+        return typeDimension1[type];
+    }
+
+    public long getTypeDimension2(int type) {
+        return typeDimension2[type];
+    }
+
+    public long getTypeDimension3(int type) {
+        return typeDimension3[type];
+    }
+
+    public double getTypeVolume(int type) {
+        return typeVolume[type];
+    }
+
+    public ItemRotation getTypeRotation(int type) {
+        return typeRotation[type];
+    }
+
+    public boolean isTypeCubic(int type) {
+        return typeDimension1[type] == typeDimension2[type] && typeDimension2[type] == typeDimension3[type];
+    }
+
+    /**
+     * @param type an item type.
+     * @param axis the type's dimension, from 1 to 3.
+     * @return the layer thickness score of the type's dimension, over all the unpacked units.
+     */
+    long getThicknessScore(int type, int axis) {
+        return thicknessHistogram.getScore(type, axis);
+    }
+
+    CandidateLayers getCandidateLayers() {
+        return candidateLayers;
+    }
+
+    OrientationTable getOrientations() {
+        return orientations;
+    }
+
+    /**
+     * @return one bit per orientation of the given type, set when the orientation fits in the container orientation
+     * given to {@link #useContainerOrientation(Volume)}.
+     */
+    public int getFitMask(int type) {
+        return fitMasks[type];
+    }
+
+    /**
+     * @return the number of units of the given type not packed yet.
+     */
+    public int getRemainingQuantity(int type) {
+        return typeQuantity[type] - typePacked[type];
+    }
+
+    /**
+     * @return the number of units of the given type already packed.
+     */
+    public int getPackedQuantity(int type) {
+        return typePacked[type];
+    }
+
+    /**
+     * @return the index of the first unit of the given type; the packed units of a type are the first ones.
+     */
+    public int getFirstUnit(int type) {
+        return typeFirstUnit[type];
+    }
+
+    public int getUnitCount() {
+        return positionX.length;
+    }
+
+    public long getPositionX(int unit) {
+        return positionX[unit];
+    }
+
+    public long getPositionY(int unit) {
+        return positionY[unit];
+    }
+
+    public long getPositionZ(int unit) {
+        return positionZ[unit];
+    }
+
+    public long getOrientationX(int unit) {
+        return orientationX[unit];
+    }
+
+    public long getOrientationY(int unit) {
+        return orientationY[unit];
+    }
+
+    public long getOrientationZ(int unit) {
+        return orientationZ[unit];
+    }
+
+    /**
+     * @return the edge of the layer under construction, reused by every layer and packing run.
+     */
+    public ScrapPad getScrapPad() {
+        return scrapPad;
+    }
+
+    PlacementSnapshot getBestPlacement() {
+        return bestPlacement;
     }
 
-    public ScrapPad getScrapFirst() {
-        return scrapFirst;
+    void setBestPlacement(PlacementSnapshot bestPlacement) {
+        this.bestPlacement = bestPlacement;
     }
 
     @Override
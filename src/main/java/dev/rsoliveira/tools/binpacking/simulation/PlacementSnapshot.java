@@ -0,0 +1,90 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact copy of the placements of a packing: the number of packed units of each type, and the position and
+ * orientation of each unit inside the container.
+ * It's taken whenever a better packing is found, so the best one can be reported without packing it again; the
+ * snapshot of the best packing also backs the items of the reported solution.
+ */
+class PlacementSnapshot {
+
+    private final int[] typePacked;
+    private final long[] positionX, positionY, positionZ;
+    private final long[] orientationX, orientationY, orientationZ;
+
+    PlacementSnapshot(int types, int units) {
+        this.typePacked = new int[types];
+        this.positionX = new long[units];
+        this.positionY = new long[units];
+        this.positionZ = new long[units];
+        this.orientationX = new long[units];
+        this.orientationY = new long[units];
+        this.orientationZ = new long[units];
+    }
+
+    /**
+     * Copies the given placements into this snapshot.
+     */
+    void capture(int[] typePacked, long[] positionX, long[] positionY, long[] positionZ,
+                 long[] orientationX, long[] orientationY, long[] orientationZ) {
+        int units = positionX.length;
+        System.arraycopy(typePacked, 0, this.typePacked, 0, typePacked.length);
+        System.arraycopy(positionX, 0, this.positionX, 0, units);
+        System.arraycopy(positionY, 0, this.positionY, 0, units);
+        System.arraycopy(positionZ, 0, this.positionZ, 0, units);
+        System.arraycopy(orientationX, 0, this.orientationX, 0, units);
+        System.arraycopy(orientationY, 0, this.orientationY, 0, units);
+        System.arraycopy(orientationZ, 0, this.orientationZ, 0, units);
+    }
+
+    /**
+     * @return the number of packed units of a type.
+     */
+    int getTypePacked(int type) {
+        return typePacked[type];
+    }
+
+    /**
+     * @return the number of packed units, of all types.
+     */
+    int getPackedUnits() {
+        int packed = 0;
+        for (int count : typePacked) {
+            packed += count;
+        }
+        return packed;
+    }
+
+    /**
+     * Creates one item per unit, carrying the unit's packing result; unpacked units are left at the origin.
+     * The units of each type are given back to its input items, in input order.
+     * @param classes the types of the input items.
+     * @param inputItems the input items, in the order their units are listed.
+     * @return a list of items, in the same order as the input items.
+     */
+    List<Item> toItems(TypeClasses classes, List<Item> inputItems) {
+        List<Item> items = new ArrayList<>(positionX.length);
+        int id = 0;
+        for (int index = 0; index < inputItems.size(); index++) {
+            Item input = inputItems.get(index);
+            int type = classes.getType(index);
+            int offset = classes.getOffset(index);
+            int unit = classes.getFirstUnit(index);
+            for (int i = 0; i < classes.getQuantity(index); i++, id++, unit++) {
+                Item item = new Item(id, input.getCode(), input.getDimension1(), input.getDimension2(),
+                        input.getDimension3(), input.getQuantity(), input.getRotation());
+                if (offset + i < typePacked[type]) {
+                    item.setPosition(positionX[unit], positionY[unit], positionZ[unit]);
+                    item.packAtOrientation(orientationX[unit], orientationY[unit], orientationZ[unit]);
+                }
+                items.add(item);
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,61 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A call to {@link PalletPackingSimulation#simulate}, from the item types given to the best packing found.
+ */
+@Name("dev.rsoliveira.binpacking.Simulate")
+@Label("Simulate")
+@Category("Bin Packing")
+@Description("Packing of a list of items into a container")
+final class SimulateEvent extends Event {
+
+    @Label("Item Types")
+    int itemTypes;
+
+    @Label("Units")
+    int units;
+
+    @Label("Packed Units")
+    int packedUnits;
+
+    @Label("Container Orientation")
+    @Description("Container orientation of the best packing, from 1 to 6")
+    int containerOrientation;
+
+    @Label("Layer Thickness")
+    @Description("Thickness of the first layer of the best packing")
+    long layerThickness;
+
+    @Label("Packed Volume")
+    double packedVolume;
+
+    @Label("Container Volume Used")
+    @Description("Percentage of the container volume used by the best packing")
+    double containerVolumeUsed;
+
+    static SimulateEvent start() {
+        SimulateEvent event = new SimulateEvent();
+        event.begin();
+        return event;
+    }
+
+    void end(PalletPackingState state, long layerThickness) {
+        end();
+        if (shouldCommit()) {
+            itemTypes = state.getTypeCount();
+            units = state.getUnitCount();
+            packedUnits = state.getBestPlacement() == null ? 0 : state.getBestPlacement().getPackedUnits();
+            containerOrientation = state.getBestVariant();
+            this.layerThickness = layerThickness;
+            packedVolume = state.getBestVolume();
+            containerVolumeUsed = state.getBestVolume() * 100 / state.getTotalContainerVolume();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+
+import java.util.List;
+
+/**
+ * Receives the search counters and timings of a simulation, to find out where the time of a slow packing goes.
+ * Listening is opt-in: a simulation created without a listener only keeps a few counters, and never reads the clock.
+ * <p>
+ * A parallel simulation reports its candidate runs from the pool threads, and one listener may be shared by
+ * concurrent simulations, so implementations must be thread-safe.
+ */
+public interface SimulationListener {
+
+    /**
+     * Called when a candidate run finishes packing, or stops because an earlier run packed 100%.
+     * @param container the container being packed.
+     * @param containerOrientation the container orientation of the run, from 1 to 6.
+     * @param layerThickness the thickness of the run's first layer.
+     * @param metrics the counters and time of the run.
+     */
+    default void onRunFinished(Container container, int containerOrientation, long layerThickness,
+                               SimulationMetrics metrics) {
+    }
+
+    /**
+     * Called once a simulation has found its best packing.
+     * @param container the container being packed.
+     * @param items the items given to pack.
+     * @param metrics the counters of all the runs, and the time of the whole simulation.
+     */
+    default void onSimulationFinished(Container container, List<Item> items, SimulationMetrics metrics) {
+    }
+}
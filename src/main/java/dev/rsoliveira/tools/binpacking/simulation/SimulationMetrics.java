@@ -0,0 +1,159 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+/**
+ * The search counters and timings of a candidate run, or of a whole simulation.
+ */
+public class SimulationMetrics {
+
+    /**
+     * Container orientations whose candidate layers were listed.
+     */
+    private long containerOrientations;
+    /**
+     * Candidate runs packed, each one starting from a (container orientation, layer thickness) pair.
+     */
+    private long candidateRuns;
+    /**
+     * Candidate runs stopped before packing their last layer, as they could no longer beat the best packing found.
+     */
+    private long prunedRuns;
+    /**
+     * Searches for the next box to pack into a gap.
+     */
+    private long findBoxCalls;
+    /**
+     * Item orientations evaluated by those searches.
+     */
+    private long boxEvaluations;
+    /**
+     * Gaps added to the layer edges.
+     */
+    private long scrapPadNodes;
+    /**
+     * Layers built, not counting the layers built inside them.
+     */
+    private long layers;
+    /**
+     * Layers built inside the unused height of another layer.
+     */
+    private long layersInLayer;
+    /**
+     * Time spent packing layers, in nanoseconds.
+     */
+    private long iterationNanos;
+    /**
+     * Time of the whole simulation, in nanoseconds; only set on the metrics of a simulation.
+     */
+    private long simulationNanos;
+
+    /**
+     * Adds the counters and times of another run to these ones.
+     */
+    synchronized void add(SimulationMetrics other) {
+        containerOrientations += other.containerOrientations;
+        candidateRuns += other.candidateRuns;
+        prunedRuns += other.prunedRuns;
+        findBoxCalls += other.findBoxCalls;
+        boxEvaluations += other.boxEvaluations;
+        scrapPadNodes += other.scrapPadNodes;
+        layers += other.layers;
+        layersInLayer += other.layersInLayer;
+        iterationNanos += other.iterationNanos;
+    }
+
+    public long getContainerOrientations() {
+        return containerOrientations;
+    }
+
+    void setContainerOrientations(long containerOrientations) {
+        this.containerOrientations = containerOrientations;
+    }
+
+    public long getCandidateRuns() {
+        return candidateRuns;
+    }
+
+    void setCandidateRuns(long candidateRuns) {
+        this.candidateRuns = candidateRuns;
+    }
+
+    public long getPrunedRuns() {
+        return prunedRuns;
+    }
+
+    void setPrunedRuns(long prunedRuns) {
+        this.prunedRuns = prunedRuns;
+    }
+
+    public long getFindBoxCalls() {
+        return findBoxCalls;
+    }
+
+    void setFindBoxCalls(long findBoxCalls) {
+        this.findBoxCalls = findBoxCalls;
+    }
+
+    public long getBoxEvaluations() {
+        return boxEvaluations;
+    }
+
+    void setBoxEvaluations(long boxEvaluations) {
+        this.boxEvaluations = boxEvaluations;
+    }
+
+    public long getScrapPadNodes() {
+        return scrapPadNodes;
+    }
+
+    void setScrapPadNodes(long scrapPadNodes) {
+        this.scrapPadNodes = scrapPadNodes;
+    }
+
+    public long getLayers() {
+        return layers;
+    }
+
+    void setLayers(long layers) {
+        this.layers = layers;
+    }
+
+    public long getLayersInLayer() {
+        return layersInLayer;
+    }
+
+    void setLayersInLayer(long layersInLayer) {
+        this.layersInLayer = layersInLayer;
+    }
+
+    public long getIterationNanos() {
+        return iterationNanos;
+    }
+
+    void setIterationNanos(long iterationNanos) {
+        this.iterationNanos = iterationNanos;
+    }
+
+    public long getSimulationNanos() {
+        return simulationNanos;
+    }
+
+    void setSimulationNanos(long simulationNanos) {
+        this.simulationNanos = simulationNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SimulationMetrics{" +
+                "containerOrientations=" + containerOrientations +
+                ", candidateRuns=" + candidateRuns +
+                ", prunedRuns=" + prunedRuns +
+                ", findBoxCalls=" + findBoxCalls +
+                ", boxEvaluations=" + boxEvaluations +
+                ", scrapPadNodes=" + scrapPadNodes +
+                ", layers=" + layers +
+                ", layersInLayer=" + layersInLayer +
+                ", iterationNanos=" + iterationNanos +
+                ", simulationNanos=" + simulationNanos +
+                '}';
+    }
+}
@@ -0,0 +1,157 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Item;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The layer thickness score of every distinct item dimension, kept up to date as units are packed.
+ * The score of a dimension is the sum, over all unpacked units, of the smallest difference between the dimension and
+ * any of the unit's dimensions; the lower the score, the better the dimension fits as a layer thickness.
+ * <p>
+ * The distinct dimensions and their scores with no unit packed are computed once per simulation and shared by the
+ * states of a parallel search; each state keeps its own current scores. Packed units are only counted per type,
+ * and removed from the scores when a score is next read, so a whole layer is accounted for at once.
+ */
+class ThicknessHistogram {
+
+    private final long[] dimensions;
+    private final long[] initialScore;
+    private final int[] dimensionIndex;
+    private final long[] typeDimension1, typeDimension2, typeDimension3;
+
+    private final long[] score;
+    private final int[] pending;
+    private final int[] pendingTypes;
+    private int pendingCount;
+
+    ThicknessHistogram(List<Item> items) {
+        int types = items.size();
+        this.typeDimension1 = new long[types];
+        this.typeDimension2 = new long[types];
+        this.typeDimension3 = new long[types];
+        long[] all = new long[types * 3];
+        for (int type = 0; type < types; type++) {
+            Item item = items.get(type);
+            typeDimension1[type] = item.getDimension1();
+            typeDimension2[type] = item.getDimension2();
+            typeDimension3[type] = item.getDimension3();
+            all[type * 3] = item.getDimension1();
+            all[type * 3 + 1] = item.getDimension2();
+            all[type * 3 + 2] = item.getDimension3();
+        }
+
+        long[] sorted = all.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        this.dimensions = Arrays.copyOf(sorted, distinct);
+
+        this.dimensionIndex = new int[all.length];
+        for (int i = 0; i < all.length; i++) {
+            dimensionIndex[i] = Arrays.binarySearch(dimensions, all[i]);
+        }
+
+        this.initialScore = new long[distinct];
+        for (int type = 0; type < types; type++) {
+            long quantity = items.get(type).getQuantity();
+            for (int i = 0; i < distinct; i++) {
+                initialScore[i] += quantity * getDimensionDiff(dimensions[i], type);
+            }
+        }
+
+        this.score = initialScore.clone();
+        this.pending = new int[types];
+        this.pendingTypes = new int[types];
+    }
+
+    private ThicknessHistogram(ThicknessHistogram shared, long[] initialScore) {
+        this.dimensions = shared.dimensions;
+        this.initialScore = initialScore;
+        this.dimensionIndex = shared.dimensionIndex;
+        this.typeDimension1 = shared.typeDimension1;
+        this.typeDimension2 = shared.typeDimension2;
+        this.typeDimension3 = shared.typeDimension3;
+        this.score = initialScore.clone();
+        this.pending = new int[typeDimension1.length];
+        this.pendingTypes = new int[typeDimension1.length];
+    }
+
+    /**
+     * @return a histogram for another state, sharing the data computed once per simulation.
+     */
+    ThicknessHistogram fork() {
+        return new ThicknessHistogram(this, initialScore);
+    }
+
+    /**
+     * @param quantities the number of units of each type.
+     * @return a histogram for the same item types with other quantities, sharing their distinct dimensions.
+     */
+    ThicknessHistogram rebase(int[] quantities) {
+        long[] rebased = new long[dimensions.length];
+        for (int type = 0; type < quantities.length; type++) {
+            if (quantities[type] > 0) {
+                for (int i = 0; i < dimensions.length; i++) {
+                    rebased[i] += quantities[type] * getDimensionDiff(dimensions[i], type);
+                }
+            }
+        }
+        return new ThicknessHistogram(this, rebased);
+    }
+
+    /**
+     * Puts back the scores with no unit packed.
+     */
+    void restart() {
+        System.arraycopy(initialScore, 0, score, 0, score.length);
+        for (int i = 0; i < pendingCount; i++) {
+            pending[pendingTypes[i]] = 0;
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * Takes a packed unit of a type out of the scores.
+     */
+    void remove(int type) {
+        if (pending[type]++ == 0) {
+            pendingTypes[pendingCount++] = type;
+        }
+    }
+
+    /**
+     * @param type an item type.
+     * @param axis the type's dimension, from 1 to 3.
+     * @return the score of the type's dimension, over all the unpacked units, including the type's own.
+     */
+    long getScore(int type, int axis) {
+        if (pendingCount > 0) {
+            applyPending();
+        }
+        return score[dimensionIndex[type * 3 + axis - 1]];
+    }
+
+    private void applyPending() {
+        for (int i = 0; i < pendingCount; i++) {
+            int type = pendingTypes[i];
+            long packed = pending[type];
+            for (int d = 0; d < dimensions.length; d++) {
+                score[d] -= packed * getDimensionDiff(dimensions[d], type);
+            }
+            pending[type] = 0;
+        }
+        pendingCount = 0;
+    }
+
+    private long getDimensionDiff(long examinedDimension, int type) {
+        long dimdif = Math.abs(examinedDimension - typeDimension1[type]);
+        dimdif = Math.min(dimdif, Math.abs(examinedDimension - typeDimension2[type]));
+        return Math.min(dimdif, Math.abs(examinedDimension - typeDimension3[type]));
+    }
+}
@@ -0,0 +1,221 @@
+package dev.rsoliveira.tools.binpacking.simulation;
+
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The item types a simulation searches over: input items with the same dimensions, in the same order, and the same
+ * rotation are folded into a single type, holding the units of all of them, so orders with many codes but few carton
+ * sizes are searched at the cost of their sizes.
+ * <p>
+ * Types are listed in the order of their first input item. The units of a type are given back to its input items in
+ * input order: the first item gets the first units packed, and the units left belong to the last items.
+ * When no two input items share their geometry, the input items are the types themselves.
+ */
+class TypeClasses {
+
+    private final List<Item> items;
+    private final List<Item> types;
+    private final int[] itemQuantity;
+    private final int[] itemType;
+    private final int[] itemOffset;
+    private final int[] typeFirstUnit;
+
+    TypeClasses(List<Item> items) {
+        int count = items.size();
+        this.items = items;
+        this.itemQuantity = new int[count];
+        this.itemType = new int[count];
+        this.itemOffset = new int[count];
+
+        Map<Geometry, Integer> typeByGeometry = new HashMap<>();
+        List<Item> types = new ArrayList<>();
+        List<Integer> quantities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Item item = items.get(i);
+            itemQuantity[i] = item.getQuantity();
+            Integer type = typeByGeometry.putIfAbsent(new Geometry(item), types.size());
+            if (type == null) {
+                type = types.size();
+                types.add(item);
+                quantities.add(0);
+            }
+            itemType[i] = type;
+            itemOffset[i] = quantities.get(type);
+            quantities.set(type, quantities.get(type) + item.getQuantity());
+        }
+
+        if (types.size() == count) {
+            this.types = items;
+        } else {
+            this.types = new ArrayList<>(types.size());
+            for (int type = 0; type < types.size(); type++) {
+                Item folded = (Item) types.get(type).clone();
+                folded.setQuantity(quantities.get(type));
+                this.types.add(folded);
+            }
+        }
+        this.typeFirstUnit = firstUnits(this.types);
+    }
+
+    private TypeClasses(List<Item> items, List<Item> types, int[] itemQuantity, int[] itemType, int[] itemOffset) {
+        this.items = items;
+        this.types = types;
+        this.itemQuantity = itemQuantity;
+        this.itemType = itemType;
+        this.itemOffset = itemOffset;
+        this.typeFirstUnit = firstUnits(types);
+    }
+
+    private static int[] firstUnits(List<Item> types) {
+        int[] firstUnit = new int[types.size()];
+        int total = 0;
+        for (int type = 0; type < types.size(); type++) {
+            firstUnit[type] = total;
+            total += types.get(type).getQuantity();
+        }
+        return firstUnit;
+    }
+
+    /**
+     * Lists the input items a packing leaves, each with the quantity left to pack, in input order.
+     * @param typePacked the number of packed units of each type.
+     * @return the items with units left.
+     */
+    List<Item> remaining(int[] typePacked) {
+        List<Item> remaining = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            int left = remaining(i, typePacked);
+            if (left > 0) {
+                Item item = (Item) items.get(i).clone();
+                item.setQuantity(left);
+                remaining.add(item);
+            }
+        }
+        return remaining;
+    }
+
+    private int remaining(int item, int[] typePacked) {
+        int packed = Math.max(0, Math.min(itemQuantity[item], typePacked[itemType[item]] - itemOffset[item]));
+        return itemQuantity[item] - packed;
+    }
+
+    /**
+     * Computes the types of the units a packing leaves, keeping the type indexes; fully packed types are kept, with
+     * no units.
+     * @param typePacked the number of packed units of each type.
+     * @return the types left; null if folding the items left on their own would list the types in another order.
+     */
+    TypeClasses next(int[] typePacked) {
+        List<Item> nextItems = remaining(typePacked);
+        int count = nextItems.size();
+        int[] nextQuantity = new int[count];
+        int[] nextType = new int[count];
+        int[] nextOffset = new int[count];
+        int[] quantities = new int[types.size()];
+
+        int lastType = -1;
+        for (int i = 0, next = 0; i < items.size(); i++) {
+            int left = remaining(i, typePacked);
+            if (left == 0) {
+                continue;
+            }
+            int type = itemType[i];
+            if (quantities[type] == 0) {
+                if (type < lastType) {
+                    return null;
+                }
+                lastType = type;
+            }
+            nextQuantity[next] = left;
+            nextType[next] = type;
+            nextOffset[next] = quantities[type];
+            quantities[type] += left;
+            next++;
+        }
+
+        List<Item> nextTypes = new ArrayList<>(types.size());
+        for (int type = 0; type < types.size(); type++) {
+            Item item = (Item) types.get(type).clone();
+            item.setQuantity(quantities[type]);
+            nextTypes.add(item);
+        }
+        return new TypeClasses(nextItems, nextTypes, nextQuantity, nextType, nextOffset);
+    }
+
+    /**
+     * @return the input items.
+     */
+    List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the folded types, each holding the units of all its input items.
+     */
+    List<Item> getTypes() {
+        return types;
+    }
+
+    /**
+     * @return the type of an input item.
+     */
+    int getType(int item) {
+        return itemType[item];
+    }
+
+    /**
+     * @return the number of units of an input item.
+     */
+    int getQuantity(int item) {
+        return itemQuantity[item];
+    }
+
+    /**
+     * @return the first unit of an input item, counted among all the units.
+     */
+    int getFirstUnit(int item) {
+        return typeFirstUnit[itemType[item]] + itemOffset[item];
+    }
+
+    /**
+     * @return the first unit of an input item, counted among the units of its type.
+     */
+    int getOffset(int item) {
+        return itemOffset[item];
+    }
+
+    /**
+     * The dimensions and rotation that make input items interchangeable.
+     */
+    private static final class Geometry {
+
+        private final long[] dimensions;
+        private final ItemRotation rotation;
+
+        Geometry(Item item) {
+            this.dimensions = new long[]{item.getDimension1(), item.getDimension2(), item.getDimension3()};
+            this.rotation = item.getRotation();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Geometry geometry = (Geometry) o;
+            return Arrays.equals(dimensions, geometry.dimensions) && rotation == geometry.rotation;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(dimensions) + Objects.hashCode(rotation);
+        }
+    }
+}
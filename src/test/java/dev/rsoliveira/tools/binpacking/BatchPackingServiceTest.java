@@ -0,0 +1,65 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.service.BatchPackingService;
+import dev.rsoliveira.tools.binpacking.service.BatchStatistics;
+import dev.rsoliveira.tools.binpacking.service.PackingRequest;
+import dev.rsoliveira.tools.binpacking.service.PackingService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchPackingServiceTest {
+
+    @Test
+    public void testBatchMatchesSingleOrders() throws Exception {
+        Container container = new Container(1, 104, 96, 84, ItemRotation.FULL);
+        List<SetAbstractTest> sets = Arrays.asList(new Set1Test(), new Set5Test(), new Set6Test(), new Set7Test(),
+                new Set8Test(), new Set9Test(), new Set10Test(), new Set11Test());
+
+        List<PackingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            for (SetAbstractTest set : sets) {
+                requests.add(new PackingRequest(container, set.getItems()));
+            }
+        }
+
+        PackingService service = PackingService.getInstance();
+        List<CompletableFuture<List<Solution>>> futures;
+        BatchStatistics statistics;
+        try (BatchPackingService batch = service.batch(3, 2)) {
+            futures = batch.submitAll(requests);
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            statistics = batch.getStatistics();
+        }
+
+        long containers = 0;
+        long packedUnits = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            List<Solution> expected = service.simulate(container, requests.get(i).getItems());
+            List<Solution> actual = futures.get(i).get();
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++) {
+                assertEquals(expected.get(j).getPercentageContainerVolumeUsed(),
+                        actual.get(j).getPercentageContainerVolumeUsed(), 0.0);
+                assertEquals(actual.get(j).getPackedItems().size(), actual.get(j).getPackedUnitCount());
+                packedUnits += actual.get(j).getPackedUnitCount();
+            }
+            containers += actual.size();
+        }
+
+        assertEquals(requests.size(), statistics.getSubmittedOrders());
+        assertEquals(requests.size(), statistics.getCompletedOrders());
+        assertEquals(0, statistics.getFailedOrders());
+        assertEquals(0, statistics.getPendingOrders());
+        assertEquals(containers, statistics.getContainers());
+        assertEquals(packedUnits, statistics.getPackedUnits());
+    }
+}
@@ -0,0 +1,170 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.domain.Volume;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import dev.rsoliveira.tools.binpacking.simulation.SimulationListener;
+import dev.rsoliveira.tools.binpacking.simulation.SimulationMetrics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BlockPackingTest {
+
+    private final Container container = new Container(1, 104, 96, 84, ItemRotation.FULL);
+
+    private static class RecordingListener implements SimulationListener {
+        private final AtomicReference<SimulationMetrics> total = new AtomicReference<>();
+
+        @Override
+        public void onRunFinished(Container container, int containerOrientation, long layerThickness,
+                                  SimulationMetrics metrics) {
+        }
+
+        @Override
+        public void onSimulationFinished(Container container, List<Item> items, SimulationMetrics metrics) {
+            total.set(metrics);
+        }
+    }
+
+    private Solution simulate(List<Item> items, RecordingListener listener) {
+        return new PalletPackingSimulation(null, listener).simulate(container, items);
+    }
+
+    private static void assertValid(Solution solution) {
+        Volume orientation = solution.getContainerOrientation();
+        List<Item> packed = solution.getPackedItems();
+        for (int i = 0; i < packed.size(); i++) {
+            Item item = packed.get(i);
+            assertTrue(item.getPositionX() + item.getOrientationX() <= orientation.getDimension1());
+            assertTrue(item.getPositionY() + item.getOrientationY() <= orientation.getDimension2());
+            assertTrue(item.getPositionZ() + item.getOrientationZ() <= orientation.getDimension3());
+            for (int j = i + 1; j < packed.size(); j++) {
+                Item other = packed.get(j);
+                assertFalse(item.getPositionX() < other.getPositionX() + other.getOrientationX() &&
+                        other.getPositionX() < item.getPositionX() + item.getOrientationX() &&
+                        item.getPositionY() < other.getPositionY() + other.getOrientationY() &&
+                        other.getPositionY() < item.getPositionY() + item.getOrientationY() &&
+                        item.getPositionZ() < other.getPositionZ() + other.getOrientationZ() &&
+                        other.getPositionZ() < item.getPositionZ() + item.getOrientationZ());
+            }
+        }
+    }
+
+    @Test
+    public void testHomogeneousOrderSkipsLayerSearch() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 4, 6, 7, 4992, ItemRotation.FULL));
+        RecordingListener listener = new RecordingListener();
+
+        Solution solution = simulate(items, listener);
+
+        assertEquals(100.0, solution.getPercentageContainerVolumeUsed(), 0.01);
+        assertTrue(solution.isCompletePacking());
+        assertEquals(0, listener.total.get().getCandidateRuns());
+        assertValid(solution);
+    }
+
+    @Test
+    public void testFullContainerOfOneType() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 14, 13, 8, 700, ItemRotation.FULL));
+        RecordingListener listener = new RecordingListener();
+
+        Solution solution = simulate(items, listener);
+
+        assertEquals(576, solution.getPackedItems().size());
+        assertEquals(124, solution.getRemainingItems().get(0).getQuantity());
+        assertEquals(0, listener.total.get().getCandidateRuns());
+        assertValid(solution);
+    }
+
+    @Test
+    public void testTwoTypesKeepTheirRotations() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 10, 12, 15, 120, ItemRotation.NONE));
+        items.add(new Item(2, "2", 9, 5, 20, 150, ItemRotation.HORIZONTAL));
+        RecordingListener listener = new RecordingListener();
+
+        Solution solution = simulate(items, listener);
+
+        assertTrue(solution.isCompletePacking());
+        assertEquals(0, listener.total.get().getCandidateRuns());
+        assertValid(solution);
+        for (Item item : solution.getPackedItems()) {
+            if (item.getCode().equals("1")) {
+                assertEquals(10, item.getOrientationX());
+                assertEquals(12, item.getOrientationY());
+                assertEquals(15, item.getOrientationZ());
+            } else {
+                assertEquals(5, item.getOrientationY());
+            }
+        }
+    }
+
+    @Test
+    public void testLayerSearchRunsWhenBlocksMayBeBeaten() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 7, 9, 11, 2000, ItemRotation.FULL));
+        RecordingListener listener = new RecordingListener();
+
+        Solution solution = simulate(items, listener);
+
+        assertTrue(listener.total.get().getCandidateRuns() > 0);
+        assertFalse(solution.isCompletePacking());
+        assertValid(solution);
+    }
+
+    @Test
+    public void testParallelSearchGetsTheSamePacking() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 14, 13, 4, 900, ItemRotation.HORIZONTAL));
+
+        Solution sequential = new PalletPackingSimulation().simulate(container, items);
+        Solution parallel = new PalletPackingSimulation(ForkJoinPool.commonPool()).simulate(container, items);
+
+        assertEquals(sequential.getPercentageContainerVolumeUsed(), parallel.getPercentageContainerVolumeUsed(), 0.0);
+        assertEquals(sequential.getPackedItems().size(), parallel.getPackedItems().size());
+    }
+
+    @Test
+    public void testFewUnitsInLargeContainer() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 3, 5, 7, 10, ItemRotation.FULL));
+
+        for (long edge : new long[]{10000, 30000, 100000}) {
+            Solution solution = new PalletPackingSimulation().simulate(
+                    new Container(1, edge, edge, edge, ItemRotation.FULL), items);
+
+            assertTrue(solution.isCompletePacking());
+            assertEquals(10, solution.getPackedItems().size());
+            assertValid(solution);
+        }
+    }
+
+    @Test
+    public void testTallContainerIsPackedLyingDown() {
+        // standing, the two knapsacks over the height of 12000 go over the cell budget; lying down, they don't
+        Container tall = new Container(1, 100, 12000, 100, ItemRotation.FULL);
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 100, 100, 50, 10, ItemRotation.FULL));
+        items.add(new Item(2, "2", 100, 100, 20, 10, ItemRotation.FULL));
+        RecordingListener listener = new RecordingListener();
+
+        Solution solution = new PalletPackingSimulation(null, listener).simulate(tall, items);
+
+        assertTrue(solution.isCompletePacking());
+        assertEquals(0, listener.total.get().getCandidateRuns());
+        assertValid(solution);
+    }
+}
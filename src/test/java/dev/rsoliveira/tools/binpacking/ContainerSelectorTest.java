@@ -0,0 +1,109 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.service.ContainerSelection;
+import dev.rsoliveira.tools.binpacking.service.ContainerSelector;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContainerSelectorTest {
+
+    private List<Container> catalog() {
+        List<Container> catalog = new ArrayList<>();
+        int id = 1;
+        for (long x = 10; x <= 60; x += 10) {
+            for (long y = 10; y <= 40; y += 10) {
+                for (long z = 20; z <= 50; z += 15) {
+                    catalog.add(new Container(id++, x, y, z, ItemRotation.FULL));
+                }
+            }
+        }
+        return catalog;
+    }
+
+    private List<Item> items() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 12, 8, 5, 6, ItemRotation.FULL));
+        items.add(new Item(2, "2", 20, 10, 10, 2, ItemRotation.HORIZONTAL));
+        items.add(new Item(3, "3", 7, 7, 7, 4, ItemRotation.NONE));
+        return items;
+    }
+
+    @Test
+    public void testSmallestFittingContainerIsChosen() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ContainerSelector selector = new ContainerSelector(catalog(), new PalletPackingSimulation(), executor);
+            ContainerSelection selection = selector.select(items());
+
+            assertTrue(selection.isFound());
+            assertTrue(selection.getSolution().isCompletePacking());
+            assertTrue(selection.getCandidates() < catalog().size());
+            assertTrue(selection.getSimulated() <= selection.getCandidates());
+
+            List<Container> sorted = new ArrayList<>(catalog());
+            sorted.sort(Comparator.comparingDouble(Container::getVolume));
+            PalletPackingSimulation simulation = new PalletPackingSimulation();
+            Container expected = null;
+            for (Container container : sorted) {
+                if (simulation.simulate(container, items()).isCompletePacking()) {
+                    expected = container;
+                    break;
+                }
+            }
+            assertEquals(expected.getId(), selection.getContainer().getId());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCostFunctionOrdersCandidates() {
+        ContainerSelector selector = new ContainerSelector(catalog());
+        // the largest containers are the cheapest ones
+        ContainerSelection selection = selector.select(items(), container -> -container.getVolume());
+
+        assertTrue(selection.isFound());
+        assertEquals(60 * 40 * 50, selection.getContainer().getVolume(), 0.0);
+    }
+
+    @Test
+    public void testNoContainerFits() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 70, 5, 5, 1, ItemRotation.FULL));
+
+        ContainerSelection selection = new ContainerSelector(catalog()).select(items);
+
+        assertFalse(selection.isFound());
+        assertNull(selection.getContainer());
+        assertNull(selection.getSolution());
+        assertEquals(0, selection.getCandidates());
+    }
+
+    @Test
+    public void testRotationRestrictsCandidates() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 5, 45, 5, 1, ItemRotation.NONE));
+
+        ContainerSelection selection = new ContainerSelector(catalog()).select(items);
+
+        assertTrue(selection.isFound());
+        assertTrue(selection.getContainer().getDimension1() >= 45 ||
+                selection.getContainer().getDimension2() >= 45 ||
+                selection.getContainer().getDimension3() >= 45);
+        assertEquals(1, selection.getSolution().getPackedItems().size());
+    }
+}
@@ -0,0 +1,193 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.service.PackingService;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FleetSimulationTest {
+
+    private List<Item> items() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 3, 5, 7, 51, ItemRotation.FULL));
+        items.add(new Item(2, "2", 20, 4, 6, 90, ItemRotation.FULL));
+        items.add(new Item(3, "3", 11, 21, 16, 80, ItemRotation.FULL));
+        items.add(new Item(4, "4", 51, 2, 60, 80, ItemRotation.HORIZONTAL));
+        items.add(new Item(5, "5", 6, 17, 8, 6, ItemRotation.NONE));
+        return items;
+    }
+
+    /**
+     * Packs the containers one at a time, each one from the remaining items of the previous one, until a container
+     * gets none of them.
+     */
+    private List<Solution> oneByOne(PalletPackingSimulation simulation, Container container, List<Item> items) {
+        List<Solution> solutions = new ArrayList<>();
+        Solution solution = simulation.simulate(container, items);
+        solutions.add(solution);
+        while (!solution.getRemainingItems().isEmpty()) {
+            solution = simulation.simulate(container, solution.getRemainingItems());
+            if (solution.getPackedUnitCount() == 0) {
+                break;
+            }
+            solutions.add(solution);
+        }
+        return solutions;
+    }
+
+    private void assertSameSolutions(List<Solution> expected, List<Solution> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Solution expectedSolution = expected.get(i);
+            Solution actualSolution = actual.get(i);
+            assertEquals(expectedSolution.getPackedVolume(), actualSolution.getPackedVolume(), 0.0);
+            assertEquals(expectedSolution.isCompletePacking(), actualSolution.isCompletePacking());
+            assertEquals(expectedSolution.getContainerOrientation().getOrientation(),
+                    actualSolution.getContainerOrientation().getOrientation());
+            assertEquals(expectedSolution.getInputItems().size(), actualSolution.getInputItems().size());
+            assertEquals(expectedSolution.getRemainingItems().size(), actualSolution.getRemainingItems().size());
+            assertEquals(expectedSolution.getUnpackedItems().size(), actualSolution.getUnpackedItems().size());
+
+            List<Item> expectedItems = expectedSolution.getPackedItems();
+            List<Item> actualItems = actualSolution.getPackedItems();
+            assertEquals(expectedItems.size(), actualItems.size());
+            for (int j = 0; j < expectedItems.size(); j++) {
+                Item expectedItem = expectedItems.get(j);
+                Item actualItem = actualItems.get(j);
+                assertEquals(expectedItem.getCode(), actualItem.getCode());
+                assertEquals(expectedItem.getId(), actualItem.getId());
+                assertEquals(expectedItem.getPositionX(), actualItem.getPositionX());
+                assertEquals(expectedItem.getPositionY(), actualItem.getPositionY());
+                assertEquals(expectedItem.getPositionZ(), actualItem.getPositionZ());
+                assertEquals(expectedItem.getOrientationX(), actualItem.getOrientationX());
+                assertEquals(expectedItem.getOrientationY(), actualItem.getOrientationY());
+                assertEquals(expectedItem.getOrientationZ(), actualItem.getOrientationZ());
+            }
+        }
+    }
+
+    @Test
+    public void testFleetMatchesOneContainerAtATime() {
+        Container container = new Container(1, 60, 40, 62, ItemRotation.FULL);
+        PalletPackingSimulation simulation = new PalletPackingSimulation();
+
+        List<Solution> fleet = simulation.simulateFleet(container, items());
+
+        assertTrue(fleet.size() > 2);
+        assertTrue(fleet.get(fleet.size() - 1).getInputItems().size() < items().size());
+        assertSameSolutions(oneByOne(simulation, container, items()), fleet);
+    }
+
+    @Test
+    public void testParallelFleetMatchesOneContainerAtATime() {
+        Container container = new Container(1, 60, 40, 62, ItemRotation.HORIZONTAL);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PalletPackingSimulation simulation = new PalletPackingSimulation(pool);
+            assertSameSolutions(oneByOne(new PalletPackingSimulation(), container, items()),
+                    simulation.simulateFleet(container, items()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testServiceUsesFleet() {
+        Container container = new Container(1, 60, 40, 62, ItemRotation.FULL);
+
+        List<Solution> solutions = PackingService.getInstance().simulate(container, items());
+
+        assertSameSolutions(oneByOne(new PalletPackingSimulation(), container, items()), solutions);
+        long packed = 0;
+        for (Solution solution : solutions) {
+            packed += solution.getPackedItems().size();
+        }
+        assertEquals(items().stream().mapToLong(Item::getQuantity).sum(), packed);
+    }
+
+    @Test
+    public void testFleetMatchesOneContainerAtATimeWithSharedGeometry() {
+        Container container = new Container(1, 60, 40, 62, ItemRotation.FULL);
+        List<Item> items = new ArrayList<>();
+        // codes sharing a carton size, interleaved with other sizes
+        items.add(new Item(1, "A1", 20, 4, 6, 40, ItemRotation.FULL));
+        items.add(new Item(2, "B1", 11, 21, 16, 30, ItemRotation.FULL));
+        items.add(new Item(3, "A2", 20, 4, 6, 50, ItemRotation.FULL));
+        items.add(new Item(4, "C1", 3, 5, 7, 51, ItemRotation.FULL));
+        items.add(new Item(5, "B2", 11, 21, 16, 50, ItemRotation.FULL));
+        items.add(new Item(6, "A3", 20, 4, 6, 10, ItemRotation.FULL));
+        PalletPackingSimulation simulation = new PalletPackingSimulation();
+
+        assertSameSolutions(oneByOne(simulation, container, items), simulation.simulateFleet(container, items));
+    }
+
+    @Test
+    public void testFleetGoesOnWhenOnlyBlocksPack() {
+        // the units left by the sixth container have no candidate layer, but pack in closed form
+        Container container = new Container(1, 40, 30, 33, ItemRotation.HORIZONTAL);
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 31, 5, 4, 58, ItemRotation.NONE));
+        items.add(new Item(2, "2", 26, 14, 11, 17, ItemRotation.NONE));
+        PalletPackingSimulation simulation = new PalletPackingSimulation();
+
+        List<Solution> expected = oneByOne(simulation, container, items);
+
+        assertTrue(expected.get(expected.size() - 1).isCompletePacking());
+        assertSameSolutions(expected, simulation.simulateFleet(container, items));
+        assertSameSolutions(expected, PackingService.getInstance().simulate(container, items));
+    }
+
+    private static Map<String, Integer> quantities(List<Item> items) {
+        Map<String, Integer> quantities = new HashMap<>();
+        for (Item item : items) {
+            quantities.merge(item.getCode(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    @Test
+    public void testFleetMatchesOneContainerAtATimeOnRandomOrders() {
+        ItemRotation[] rotations = {ItemRotation.NONE, ItemRotation.HORIZONTAL, ItemRotation.FULL};
+        Random random = new Random(20261018L);
+        PalletPackingSimulation simulation = new PalletPackingSimulation();
+
+        for (int order = 0; order < 200; order++) {
+            Container container = new Container(1, 10 + random.nextInt(80), 10 + random.nextInt(80),
+                    10 + random.nextInt(80), rotations[random.nextInt(2)]);
+            // some items are longer than a container edge, so they only fit rotated, or not at all
+            List<Item> items = new ArrayList<>();
+            int types = 1 + random.nextInt(4);
+            for (int type = 0; type < types; type++) {
+                items.add(new Item(type + 1, String.valueOf(type), 1 + random.nextInt(50), 1 + random.nextInt(50),
+                        1 + random.nextInt(50), 1 + random.nextInt(60), rotations[random.nextInt(3)]));
+            }
+
+            List<Solution> expected = oneByOne(simulation, container, items);
+            List<Solution> actual = simulation.simulateFleet(container, items);
+
+            String message = "order " + order;
+            assertEquals(message, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(message, expected.get(i).getPackedUnitCount(), actual.get(i).getPackedUnitCount());
+                assertEquals(message, quantities(expected.get(i).getRemainingItems()),
+                        quantities(actual.get(i).getRemainingItems()));
+                if (i > 0) {
+                    assertTrue(message, actual.get(i).getPackedUnitCount() > 0);
+                }
+            }
+        }
+    }
+}
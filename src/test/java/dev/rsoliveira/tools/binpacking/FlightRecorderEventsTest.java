@@ -0,0 +1,76 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void testEventsAreRecorded() throws IOException {
+        Container container = new Container(1, 104, 96, 84, ItemRotation.FULL);
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 3, 5, 7, 51, ItemRotation.FULL));
+        items.add(new Item(2, "2", 20, 4, 6, 90, ItemRotation.FULL));
+        items.add(new Item(3, "3", 11, 21, 16, 80, ItemRotation.FULL));
+        items.add(new Item(4, "4", 51, 2, 60, 80, ItemRotation.FULL));
+        items.add(new Item(5, "5", 6, 17, 8, 6, ItemRotation.FULL));
+
+        Path file = Files.createTempFile("binpacking", ".jfr");
+        Solution solution;
+        try (Recording recording = new Recording()) {
+            recording.enable("dev.rsoliveira.binpacking.Simulate");
+            recording.enable("dev.rsoliveira.binpacking.CandidateRun");
+            recording.enable("dev.rsoliveira.binpacking.Layer");
+            recording.start();
+            solution = new PalletPackingSimulation().simulate(container, items);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        int simulations = 0, runs = 0, layers = 0;
+        try {
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                switch (event.getEventType().getName()) {
+                    case "dev.rsoliveira.binpacking.Simulate":
+                        simulations++;
+                        assertEquals(5, event.getInt("itemTypes"));
+                        assertEquals(307, event.getInt("units"));
+                        assertEquals(solution.getPackedItems().size(), event.getInt("packedUnits"));
+                        assertEquals(solution.getBestSolutionVolume(), event.getDouble("packedVolume"), 0.0);
+                        break;
+                    case "dev.rsoliveira.binpacking.CandidateRun":
+                        runs++;
+                        assertTrue(event.getLong("layerThickness") > 0);
+                        break;
+                    case "dev.rsoliveira.binpacking.Layer":
+                        layers++;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals(1, simulations);
+        assertTrue(runs > 0);
+        assertTrue(layers >= runs);
+    }
+}
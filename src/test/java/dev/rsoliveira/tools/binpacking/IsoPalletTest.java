@@ -101,7 +101,7 @@ public class IsoPalletTest extends TestCase {
             solutions.add(solution);
         }
 
-        assertEquals(6, solutions.size());
+        assertEquals(2, solutions.size());
         assertEquals(47.33f, solutions.get(0).getPercentageContainerVolumeUsed(), 0.01);
     }
 
@@ -124,7 +124,7 @@ public class IsoPalletTest extends TestCase {
             solutions.add(solution);
         }
 
-        assertEquals(36, solutions.size());
+        assertEquals(7, solutions.size());
         assertEquals(35.48f, solutions.get(0).getPercentageContainerVolumeUsed(), 0.01);
     }
 
@@ -147,7 +147,7 @@ public class IsoPalletTest extends TestCase {
             solutions.add(solution);
         }
 
-        assertEquals(6, solutions.size());
+        assertEquals(2, solutions.size());
         assertEquals(46.73f, solutions.get(0).getPercentageContainerVolumeUsed(), 0.01);
     }
 
@@ -170,7 +170,7 @@ public class IsoPalletTest extends TestCase {
             solutions.add(solution);
         }
 
-        assertEquals(36, solutions.size());
+        assertEquals(6, solutions.size());
         assertEquals(33.21f, solutions.get(0).getPercentageContainerVolumeUsed(), 0.01);
     }
 }
@@ -0,0 +1,152 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.service.PackingBounds;
+import dev.rsoliveira.tools.binpacking.service.PackingService;
+import dev.rsoliveira.tools.binpacking.service.SolutionCache;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackingBoundsTest {
+
+    private final Container container = new Container(1, 10, 10, 10, ItemRotation.FULL);
+
+    private List<Item> items(Item... items) {
+        List<Item> list = new ArrayList<>();
+        for (Item item : items) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    @Test
+    public void testVolumeBound() {
+        PackingBounds bounds = PackingBounds.of(container, items(new Item(1, "1", 1, 1, 1, 2500, ItemRotation.FULL)));
+
+        assertEquals(3, bounds.getVolumeBound());
+        assertEquals(3, bounds.getMinContainers());
+        assertEquals(2500 / 3000.0, bounds.getMaxAverageFill(), 1e-9);
+        assertTrue(bounds.isPackable());
+    }
+
+    @Test
+    public void testLargeItemsNeedContainersOfTheirOwn() {
+        PackingBounds bounds = PackingBounds.of(container, items(
+                new Item(1, "1", 6, 6, 6, 3, ItemRotation.FULL),
+                new Item(2, "2", 6, 6, 4, 5, ItemRotation.FULL)));
+
+        assertEquals(2, bounds.getVolumeBound());
+        assertEquals(3, bounds.getLargeItemBound());
+        assertEquals(3, bounds.getMinContainers());
+    }
+
+    @Test
+    public void testRotationsAreConsidered() {
+        Container tall = new Container(1, 10, 13, 10, ItemRotation.NONE);
+        Item lying = new Item(1, "1", 12, 1, 1, 1, ItemRotation.NONE);
+
+        assertFalse(PackingBounds.of(tall, items(lying)).isPackable());
+        assertTrue(PackingBounds.of(tall, items(new Item(1, "1", 12, 1, 1, 1, ItemRotation.FULL))).isPackable());
+        assertTrue(PackingBounds.of(new Container(1, 10, 13, 10, ItemRotation.FULL), items(lying)).isPackable());
+    }
+
+    @Test
+    public void testUnpackableItemsAreLeftOut() {
+        Item tooLong = new Item(2, "2", 20, 1, 1, 4, ItemRotation.FULL);
+        PackingBounds bounds = PackingBounds.of(container, items(
+                new Item(1, "1", 5, 5, 5, 8, ItemRotation.FULL), tooLong));
+
+        assertEquals(1, bounds.getMinContainers());
+        assertEquals(8, bounds.getPackableUnits());
+        assertEquals(1, bounds.getUnpackableItems().size());
+        assertEquals("2", bounds.getUnpackableItems().get(0).getCode());
+    }
+
+    @Test
+    public void testServiceStopsWhenOnlyUnpackableItemsRemain() {
+        List<Item> items = items(
+                new Item(1, "1", 5, 5, 5, 10, ItemRotation.FULL),
+                new Item(2, "2", 20, 1, 1, 4, ItemRotation.FULL));
+
+        PalletPackingSimulation engine = new PalletPackingSimulation();
+        List<List<Solution>> runs = new ArrayList<>();
+        runs.add(PackingService.getInstance().simulate(container, items));
+        runs.add(PackingService.newInstance(engine::simulate).simulate(container, items));
+
+        for (List<Solution> solutions : runs) {
+            assertEquals(2, solutions.size());
+            List<Item> remaining = solutions.get(solutions.size() - 1).getRemainingItems();
+            assertEquals(1, remaining.size());
+            assertEquals("2", remaining.get(0).getCode());
+            assertEquals(4, remaining.get(0).getQuantity());
+        }
+    }
+
+    @Test
+    public void testBoundNeverExceedsContainersUsed() {
+        Container pallet = new Container(1, 60, 40, 62, ItemRotation.FULL);
+        List<Item> items = items(
+                new Item(1, "1", 3, 5, 7, 51, ItemRotation.FULL),
+                new Item(2, "2", 20, 4, 6, 90, ItemRotation.FULL),
+                new Item(3, "3", 11, 21, 16, 80, ItemRotation.FULL),
+                new Item(4, "4", 51, 2, 60, 80, ItemRotation.HORIZONTAL),
+                new Item(5, "5", 35, 25, 40, 6, ItemRotation.NONE));
+
+        PackingBounds bounds = PackingService.getInstance().bounds(pallet, items);
+        List<Solution> solutions = PackingService.getInstance().simulate(pallet, items);
+
+        assertTrue(bounds.getMinContainers() > 1);
+        assertTrue(bounds.getMinContainers() <= solutions.size());
+    }
+
+    @Test
+    public void testServiceStopsWhenNoUnitIsPacked() {
+        // every unit fits in the container on its own, but the search packs none of them
+        Container pallet = new Container(1, 40, 30, 33, ItemRotation.NONE);
+        List<Item> items = items(
+                new Item(1, "1", 31, 5, 4, 3, ItemRotation.NONE),
+                new Item(2, "2", 32, 6, 4, 3, ItemRotation.NONE),
+                new Item(3, "3", 33, 7, 4, 3, ItemRotation.NONE));
+
+        PalletPackingSimulation engine = new PalletPackingSimulation();
+        assertEquals(9, PackingService.getInstance().bounds(pallet, items).getPackableUnits());
+        List<List<Solution>> runs = new ArrayList<>();
+        runs.add(PackingService.getInstance().simulate(pallet, items));
+        runs.add(PackingService.newInstance(engine::simulate).simulate(pallet, items));
+        runs.add(PackingService.newInstance(new SolutionCache(engine, 100)).simulate(pallet, items));
+        runs.add(PackingService.newInstance(engine).simulate(pallet, items, null, null));
+
+        for (List<Solution> solutions : runs) {
+            assertEquals(1, solutions.size());
+            assertEquals(0, solutions.get(0).getPackedUnitCount());
+            assertEquals(3, solutions.get(0).getRemainingItems().size());
+        }
+    }
+
+    @Test
+    public void testFleetStopsLikeTheServiceLoop() {
+        Container pallet = new Container(1, 28, 78, 87, ItemRotation.NONE);
+        List<Item> items = items(
+                new Item(1, "1", 3, 3, 10, 5, ItemRotation.NONE),
+                new Item(2, "2", 29, 4, 19, 7, ItemRotation.NONE));
+
+        PalletPackingSimulation engine = new PalletPackingSimulation();
+        List<Solution> fleet = engine.simulateFleet(pallet, items);
+        List<Solution> loop = PackingService.newInstance(engine::simulate).simulate(pallet, items);
+
+        assertEquals(1, fleet.size());
+        assertEquals(loop.size(), fleet.size());
+        assertEquals(loop.get(0).getPackedUnitCount(), fleet.get(0).getPackedUnitCount());
+        assertEquals(7, fleet.get(0).getRemainingItems().get(0).getQuantity());
+    }
+}
@@ -0,0 +1,101 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.service.PackingService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class PackingServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2;
+
+    @Test
+    public void testSharedServiceGivesIdenticalResults() throws Exception {
+        List<SetAbstractTest> sets = Arrays.asList(new Set1Test(), new Set5Test(), new Set6Test(), new Set7Test(),
+                new Set8Test(), new Set9Test(), new Set10Test(), new Set11Test());
+        List<Container> containers = new ArrayList<>();
+        List<List<Item>> orders = new ArrayList<>();
+        for (SetAbstractTest set : sets) {
+            for (ItemRotation rotation : ItemRotation.values()) {
+                containers.add(new Container(1, 104, 96, 84, rotation));
+                orders.add(set.getItems());
+            }
+        }
+
+        PackingService service = PackingService.getInstance();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            expected.add(describe(service.simulate(containers.get(i), orders.get(i))));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                Callable<List<String>> caller = () -> {
+                    start.await();
+                    List<String> results = new ArrayList<>();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < orders.size(); i++) {
+                            int order = (i + offset) % orders.size();
+                            results.add(describe(PackingService.getInstance()
+                                    .simulate(containers.get(order), orders.get(order))));
+                        }
+                    }
+                    return results;
+                };
+                futures.add(executor.submit(caller));
+            }
+            start.countDown();
+
+            for (int t = 0; t < THREADS; t++) {
+                List<String> results = futures.get(t).get();
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (int i = 0; i < orders.size(); i++) {
+                        int order = (i + t) % orders.size();
+                        assertEquals(expected.get(order), results.get(round * orders.size() + i));
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String describe(List<Solution> solutions) {
+        StringBuilder result = new StringBuilder();
+        for (Solution solution : solutions) {
+            result.append(solution.getPercentageContainerVolumeUsed()).append('|')
+                    .append(solution.getContainerOrientation().getDimension1()).append('x')
+                    .append(solution.getContainerOrientation().getDimension2()).append('x')
+                    .append(solution.getContainerOrientation().getDimension3()).append('|');
+            for (Item item : solution.getPackedItems()) {
+                result.append(item.getCode()).append('@')
+                        .append(item.getPositionX()).append(',')
+                        .append(item.getPositionY()).append(',')
+                        .append(item.getPositionZ()).append(':')
+                        .append(item.getOrientationX()).append(',')
+                        .append(item.getOrientationY()).append(',')
+                        .append(item.getOrientationZ()).append(';');
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.simulation.ISimulation;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelSimulationTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSameSolutionAsSequential() {
+        List<SetAbstractTest> sets = Arrays.asList(new Set1Test(), new Set3Test(), new Set5Test(), new Set6Test(),
+                new Set7Test(), new Set8Test(), new Set9Test(), new Set10Test(), new Set11Test(), new Set12Test(),
+                new Set15Test());
+
+        ISimulation<Container, Item> sequential = new PalletPackingSimulation();
+        ISimulation<Container, Item> parallel = new PalletPackingSimulation(pool);
+        for (SetAbstractTest set : sets) {
+            for (ItemRotation rotation : new ItemRotation[]{ItemRotation.FULL, ItemRotation.NONE}) {
+                Container container = new Container(1, 104, 96, 84, rotation);
+                Solution expected = sequential.simulate(container, set.getItems());
+                Solution actual = parallel.simulate(container, set.getItems());
+
+                assertEquals(expected.getPercentageContainerVolumeUsed(), actual.getPercentageContainerVolumeUsed(), 0.0);
+                assertEquals(expected.getPackedItems().size(), actual.getPackedItems().size());
+                assertEquals(expected.getContainerOrientation().getDimension1(), actual.getContainerOrientation().getDimension1());
+                assertEquals(expected.getContainerOrientation().getDimension2(), actual.getContainerOrientation().getDimension2());
+                assertEquals(expected.getContainerOrientation().getDimension3(), actual.getContainerOrientation().getDimension3());
+            }
+        }
+    }
+}
@@ -15,6 +15,6 @@ public class Set16Test extends SetAbstractTest {
         items.add(new Item(2, "2", 14, 13, 8, 288, ItemRotation.FULL));
 
         this.setItems(items);
-        this.setContainerVolumeUsed(98.09);
+        this.setContainerVolumeUsed(100.0);
     }
 }
@@ -0,0 +1,93 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import dev.rsoliveira.tools.binpacking.simulation.SimulationListener;
+import dev.rsoliveira.tools.binpacking.simulation.SimulationMetrics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimulationListenerTest {
+
+    private static class RecordingListener implements SimulationListener {
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong findBoxCalls = new AtomicLong();
+        private final AtomicReference<SimulationMetrics> total = new AtomicReference<>();
+
+        @Override
+        public void onRunFinished(Container container, int containerOrientation, long layerThickness,
+                                  SimulationMetrics metrics) {
+            runs.incrementAndGet();
+            findBoxCalls.addAndGet(metrics.getFindBoxCalls());
+        }
+
+        @Override
+        public void onSimulationFinished(Container container, List<Item> items, SimulationMetrics metrics) {
+            total.set(metrics);
+        }
+    }
+
+    private List<Item> items() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 3, 5, 7, 51, ItemRotation.FULL));
+        items.add(new Item(2, "2", 20, 4, 6, 90, ItemRotation.FULL));
+        items.add(new Item(3, "3", 11, 21, 16, 80, ItemRotation.FULL));
+        items.add(new Item(4, "4", 51, 2, 60, 80, ItemRotation.FULL));
+        items.add(new Item(5, "5", 6, 17, 8, 6, ItemRotation.FULL));
+        return items;
+    }
+
+    @Test
+    public void testSequentialMetrics() {
+        Container container = new Container(1, 104, 96, 84, ItemRotation.FULL);
+        RecordingListener listener = new RecordingListener();
+
+        Solution listened = new PalletPackingSimulation(null, listener).simulate(container, items());
+        Solution plain = new PalletPackingSimulation().simulate(container, items());
+
+        SimulationMetrics total = listener.total.get();
+        assertNotNull(total);
+        assertEquals(plain.getPercentageContainerVolumeUsed(), listened.getPercentageContainerVolumeUsed(), 0.0);
+        assertEquals(6, total.getContainerOrientations());
+        assertEquals(listener.runs.get(), total.getCandidateRuns());
+        assertEquals(listener.findBoxCalls.get(), total.getFindBoxCalls());
+        assertTrue(total.getLayers() >= total.getCandidateRuns());
+        assertTrue(total.getBoxEvaluations() >= total.getFindBoxCalls());
+        assertTrue(total.getScrapPadNodes() > 0);
+        assertTrue(total.getSimulationNanos() >= total.getIterationNanos());
+        assertTrue(total.getPrunedRuns() <= total.getCandidateRuns());
+    }
+
+    @Test
+    public void testParallelMetrics() {
+        Container container = new Container(1, 104, 96, 84, ItemRotation.FULL);
+        RecordingListener listener = new RecordingListener();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new PalletPackingSimulation(pool, listener).simulate(container, items());
+        } finally {
+            pool.shutdown();
+        }
+
+        SimulationMetrics total = listener.total.get();
+        assertNotNull(total);
+        assertEquals(6, total.getContainerOrientations());
+        assertEquals(listener.runs.get(), total.getCandidateRuns());
+        assertEquals(listener.findBoxCalls.get(), total.getFindBoxCalls());
+        assertTrue(total.getCandidateRuns() > 0);
+        assertTrue(total.getPrunedRuns() <= total.getCandidateRuns());
+    }
+}
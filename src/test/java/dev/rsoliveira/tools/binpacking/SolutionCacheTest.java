@@ -0,0 +1,171 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.service.CacheStatistics;
+import dev.rsoliveira.tools.binpacking.service.PackingService;
+import dev.rsoliveira.tools.binpacking.service.SolutionCache;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class SolutionCacheTest {
+
+    private final Container container = new Container(1, 104, 96, 84, ItemRotation.FULL);
+
+    private List<Item> order(String prefix) {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, prefix + "1", 70, 104, 24, 4, ItemRotation.FULL));
+        items.add(new Item(2, prefix + "2", 14, 104, 48, 2, ItemRotation.FULL));
+        items.add(new Item(3, prefix + "3", 40, 52, 36, 3, ItemRotation.FULL));
+        return items;
+    }
+
+    private Map<String, Integer> countByCode(List<Item> units) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Item unit : units) {
+            counts.merge(unit.getCode(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    public void testRepeatedOrderIsAnsweredFromCache() {
+        SolutionCache cache = new SolutionCache(new PalletPackingSimulation(), 10);
+
+        Solution first = cache.simulate(container, order("a"));
+        List<Item> shuffled = order("b");
+        shuffled.add(shuffled.remove(0));
+        Solution second = cache.simulate(container, shuffled);
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getSize());
+        assertEquals(0.5, statistics.getHitRate(), 0.0);
+
+        assertEquals(first.getPackedVolume(), second.getPackedVolume(), 0.0);
+        assertEquals(first.getPackedItems().size(), second.getPackedItems().size());
+        for (Item unit : second.getPackedItems()) {
+            assertTrue(unit.getCode().startsWith("b"));
+        }
+        for (Item unit : second.getRemainingItems()) {
+            assertTrue(unit.getCode().startsWith("b"));
+        }
+        Map<String, Integer> firstCounts = countByCode(first.getPackedItems());
+        Map<String, Integer> secondCounts = countByCode(second.getPackedItems());
+        for (Map.Entry<String, Integer> entry : firstCounts.entrySet()) {
+            assertEquals(entry.getValue(), secondCounts.get("b" + entry.getKey().substring(1)));
+        }
+    }
+
+    @Test
+    public void testCachedPlacementsKeepCallerDimensions() {
+        SolutionCache cache = new SolutionCache(new PalletPackingSimulation(), 10);
+        cache.simulate(container, order("a"));
+        Solution solution = cache.simulate(container, order("b"));
+
+        for (Item unit : solution.getPackedItems()) {
+            assertEquals(unit.getVolume(),
+                    (double) unit.getOrientationX() * unit.getOrientationY() * unit.getOrientationZ(), 0.0);
+            assertTrue(unit.getMaxPositionX() <= solution.getContainerOrientation().getDimension1());
+            assertTrue(unit.getMaxPositionY() <= solution.getContainerOrientation().getDimension2());
+            assertTrue(unit.getMaxPositionZ() <= solution.getContainerOrientation().getDimension3());
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSolutionIsEvicted() {
+        SolutionCache cache = new SolutionCache(new PalletPackingSimulation(), 1);
+        Container other = new Container(2, 120, 100, 80, ItemRotation.FULL);
+
+        cache.simulate(container, order("a"));
+        cache.simulate(other, order("a"));
+        cache.simulate(container, order("a"));
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(0, statistics.getHits());
+        assertEquals(3, statistics.getMisses());
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(1, statistics.getSize());
+    }
+
+    @Test
+    public void testServiceBackedByCache() {
+        SolutionCache cache = new SolutionCache(new PalletPackingSimulation(), 10);
+        PackingService service = PackingService.newInstance(cache);
+
+        List<Solution> first = service.simulate(container, order("a"));
+        List<Solution> second = service.simulate(container, order("b"));
+
+        assertEquals(first.size(), second.size());
+        assertEquals(first.size(), cache.getStatistics().getMisses());
+        assertEquals(first.size(), cache.getStatistics().getHits());
+    }
+
+    @Test
+    public void testConcurrentIdenticalOrdersShareOneSearch() throws Exception {
+        int callers = 8;
+        AtomicInteger searches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        PalletPackingSimulation engine = new PalletPackingSimulation();
+        SolutionCache cache = new SolutionCache((container, items) -> {
+            searches.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return engine.simulate(container, items);
+        }, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Solution>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String prefix = "c" + i + "-";
+                futures.add(executor.submit(() -> cache.simulate(container, order(prefix))));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (cache.getStatistics().getCoalesced() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            List<Solution> solutions = new ArrayList<>();
+            for (Future<Solution> future : futures) {
+                solutions.add(future.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, searches.get());
+            assertEquals(1, cache.getStatistics().getMisses());
+            assertEquals(callers - 1, cache.getStatistics().getCoalesced());
+
+            Solution first = solutions.get(0);
+            Solution second = solutions.get(1);
+            assertNotSame(first.getPackedItems(), second.getPackedItems());
+            assertNotSame(first.getContainerOrientation(), second.getContainerOrientation());
+            first.getPackedItems().get(0).setPosition(-1, -1, -1);
+            assertTrue(second.getPackedItems().get(0).getPositionX() >= 0);
+            assertEquals(first.getPackedItems().size(), second.getPackedItems().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
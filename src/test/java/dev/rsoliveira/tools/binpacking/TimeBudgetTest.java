@@ -0,0 +1,107 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.service.PackingService;
+import dev.rsoliveira.tools.binpacking.simulation.CancellationToken;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimeBudgetTest {
+
+    private final Container container = new Container(1, 104, 96, 84, ItemRotation.FULL);
+
+    private List<Item> items() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 3, 5, 7, 51, ItemRotation.FULL));
+        items.add(new Item(2, "2", 20, 4, 6, 90, ItemRotation.FULL));
+        items.add(new Item(3, "3", 11, 21, 16, 80, ItemRotation.FULL));
+        items.add(new Item(4, "4", 51, 2, 60, 80, ItemRotation.FULL));
+        items.add(new Item(5, "5", 6, 17, 8, 6, ItemRotation.FULL));
+        return items;
+    }
+
+    @Test
+    public void testLargeBudgetMatchesUnlimitedSearch() {
+        Solution unlimited = new PalletPackingSimulation().simulate(container, items());
+        Solution budgeted = new PalletPackingSimulation().simulate(container, items(), Duration.ofMinutes(10));
+
+        assertFalse(unlimited.isPartial());
+        assertFalse(budgeted.isPartial());
+        assertEquals(unlimited.getPercentageContainerVolumeUsed(), budgeted.getPercentageContainerVolumeUsed(), 0.0);
+        assertEquals(unlimited.getPackedItems().size(), budgeted.getPackedItems().size());
+    }
+
+    @Test
+    public void testCancelledTokenStopsTheSearch() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        Solution solution = new PalletPackingSimulation().simulate(container, items(), token);
+
+        assertTrue(solution.isPartial());
+        assertFalse(solution.isCompletePacking());
+        assertEquals(0, solution.getPackedItems().size());
+        assertEquals(items().stream().mapToLong(Item::getQuantity).sum(), solution.getUnpackedItems().size());
+    }
+
+    @Test
+    public void testCancelledTokenStopsTheSearchOfOneType() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        List<Item> items = new ArrayList<>();
+        items.add(new Item(1, "1", 4, 6, 7, 4992, ItemRotation.FULL));
+
+        Solution solution = new PalletPackingSimulation().simulate(container, items, token);
+
+        assertTrue(solution.isPartial());
+        assertEquals(0, solution.getPackedItems().size());
+        assertEquals(4992, solution.getUnpackedItems().size());
+    }
+
+    @Test
+    public void testCancelledTokenStopsTheParallelSearch() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Solution solution = new PalletPackingSimulation(pool).simulate(container, items(), token);
+            assertTrue(solution.isPartial());
+            assertEquals(0, solution.getPackedItems().size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testExhaustedBudgetReturnsPartialSolution() {
+        Solution solution = new PalletPackingSimulation().simulate(container, items(), Duration.ZERO);
+
+        assertTrue(solution.isPartial());
+        assertEquals(solution.getPackedItems().size() + solution.getUnpackedItems().size(),
+                items().stream().mapToLong(Item::getQuantity).sum());
+    }
+
+    @Test
+    public void testServiceStopsAfterPartialSolution() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        List<Solution> solutions = PackingService.getInstance().simulate(container, items(), null, token);
+
+        assertEquals(1, solutions.size());
+        assertTrue(solutions.get(0).isPartial());
+    }
+}
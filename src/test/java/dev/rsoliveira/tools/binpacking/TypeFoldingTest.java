@@ -0,0 +1,104 @@
+package dev.rsoliveira.tools.binpacking;
+
+import dev.rsoliveira.tools.binpacking.domain.Container;
+import dev.rsoliveira.tools.binpacking.domain.Item;
+import dev.rsoliveira.tools.binpacking.domain.ItemRotation;
+import dev.rsoliveira.tools.binpacking.domain.Solution;
+import dev.rsoliveira.tools.binpacking.simulation.PalletPackingSimulation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TypeFoldingTest {
+
+    private final Container container = new Container(1, 60, 40, 62, ItemRotation.FULL);
+
+    private static final long[][] SIZES = {{3, 5, 7}, {20, 4, 6}, {11, 21, 16}};
+
+    /**
+     * Lists three carton sizes, each split over several codes.
+     */
+    private List<Item> codes() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            long[] size = SIZES[i % SIZES.length];
+            items.add(new Item(i + 1, "C" + i, size[0], size[1], size[2], 5 + i * 3, ItemRotation.FULL));
+        }
+        return items;
+    }
+
+    /**
+     * Lists the same units with one code per carton size.
+     */
+    private List<Item> sizes() {
+        List<Item> items = new ArrayList<>();
+        for (int s = 0; s < SIZES.length; s++) {
+            int quantity = 0;
+            for (Item item : codes()) {
+                if (item.getDimension1() == SIZES[s][0] && item.getDimension2() == SIZES[s][1]) {
+                    quantity += item.getQuantity();
+                }
+            }
+            items.add(new Item(s + 1, "S" + s, SIZES[s][0], SIZES[s][1], SIZES[s][2], quantity, ItemRotation.FULL));
+        }
+        return items;
+    }
+
+    @Test
+    public void testCodesWithTheSameGeometryPackAsOneType() {
+        PalletPackingSimulation simulation = new PalletPackingSimulation();
+
+        Solution byCode = simulation.simulate(container, codes());
+        Solution bySize = simulation.simulate(container, sizes());
+
+        assertEquals(bySize.getPackedVolume(), byCode.getPackedVolume(), 0.0);
+        assertEquals(bySize.getPackedItems().size(), byCode.getPackedItems().size());
+        assertEquals(codes().size(), byCode.getInputItems().size());
+        for (int i = 0; i < bySize.getPackedItems().size(); i++) {
+            Item size = bySize.getPackedItems().get(i);
+            Item code = byCode.getPackedItems().get(i);
+            assertEquals(size.getPositionX(), code.getPositionX());
+            assertEquals(size.getPositionY(), code.getPositionY());
+            assertEquals(size.getPositionZ(), code.getPositionZ());
+            assertEquals(size.getOrientationY(), code.getOrientationY());
+        }
+    }
+
+    @Test
+    public void testUnitsGoBackToCodesInInputOrder() {
+        List<Item> codes = codes();
+        Solution solution = new PalletPackingSimulation().simulate(container, codes);
+
+        Map<String, Integer> packed = new HashMap<>();
+        for (Item item : solution.getPackedItems()) {
+            packed.merge(item.getCode(), 1, Integer::sum);
+        }
+        Map<String, Integer> remaining = new HashMap<>();
+        for (Item item : solution.getRemainingItems()) {
+            remaining.put(item.getCode(), item.getQuantity());
+        }
+
+        assertFalse(solution.isCompletePacking());
+        for (long[] size : SIZES) {
+            // once a code of a size has units left, the later codes of that size have none packed
+            boolean left = false;
+            for (Item code : codes) {
+                if (code.getDimension1() != size[0] || code.getDimension2() != size[1]) {
+                    continue;
+                }
+                int codePacked = packed.getOrDefault(code.getCode(), 0);
+                assertEquals(code.getQuantity(), codePacked + remaining.getOrDefault(code.getCode(), 0));
+                if (left) {
+                    assertEquals(0, codePacked);
+                }
+                left |= codePacked < code.getQuantity();
+            }
+        }
+    }
+}